@@ -0,0 +1,79 @@
+/**
+ * This class benchmarks reading and aggregating MotorPH attendance records:
+ * parsing the attendance CSV file (sequentially from a stream and in parallel from mapped chunks)
+ * and applying the attendance rules to group records into weekly regular and overtime minutes,
+ * then building and querying the week-bucketed index of those minutes.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For file input/output operations
+import java.nio.file.*;                                 // For opening the attendance file
+import java.util.concurrent.TimeUnit;                   // For the reported time unit
+import org.openjdk.jmh.annotations.*;                   // For the JMH benchmark annotations
+import org.openjdk.jmh.infra.Blackhole;                 // For consuming parsed records
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class AttendanceBenchmark {
+
+    /**
+     * Parses the whole attendance file on one thread from a buffered stream.
+     */
+    @Benchmark
+    public long parseSequential(PayrollDataSet data, Blackhole blackhole) throws IOException {
+        AttendanceParser parser = new AttendanceParser((employeeId, epochDay, logIn, logOut) -> {
+            blackhole.consume(employeeId);
+            blackhole.consume(epochDay + logIn + logOut);
+        }, null);
+        try (InputStream in = Files.newInputStream(Path.of(data.attendanceFilePath))) {
+            parser.parse(in);
+        }
+        return parser.recordCount();
+    }
+
+    /**
+     * Parses the attendance file in parallel from newline-aligned mapped chunks into columns,
+     * the way the batch payroll run parses it when there is no attendance cache.
+     */
+    @Benchmark
+    public AttendanceColumns parseParallel(PayrollDataSet data) throws IOException {
+        return data.parseAttendance();
+    }
+
+    /**
+     * Applies the attendance rules to every parsed record and adds up the weekly totals.
+     */
+    @Benchmark
+    public WeeklyAttendance aggregate(PayrollDataSet data) {
+        return MotorPH.aggregateAttendance(data.attendance, data.workerPool, new PayrollMetrics("benchmark"));
+    }
+
+    /**
+     * Aggregates the weekly totals and converts them to the weekly records used by the payroll calculation.
+     */
+    @Benchmark
+    public Object aggregateToWeeklyRecords(PayrollDataSet data) {
+        return MotorPH.aggregateAttendance(data.attendance, data.workerPool, new PayrollMetrics("benchmark")).toWeeklyRecords();
+    }
+
+    /**
+     * Aggregates the weekly totals and builds the week-bucketed index the payroll service queries.
+     */
+    @Benchmark
+    public WeeklyAttendanceIndex buildWeekIndex(PayrollDataSet data) {
+        return WeeklyAttendanceIndex.of(MotorPH.aggregateAttendance(data.attendance, data.workerPool, new PayrollMetrics("benchmark")));
+    }
+
+    /**
+     * Looks up every employee's weekly records of the last week, touching only that week's bucket.
+     */
+    @Benchmark
+    public Object queryLastWeek(PayrollDataSet data) {
+        return data.weeks.weeklyRecords(data.lastWeek);
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * This class benchmarks the MotorPH payroll calculation: deduction table lookups,
+ * computing and rendering every employee's weekly payslips, and a complete batch payroll run
+ * from the CSV files with its output discarded.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For discarding the batch payroll output
+import java.math.RoundingMode;                          // For rounding deductions to centavos
+import java.time.*;                                     // For week start dates and durations
+import java.util.*;                                     // For collections like TreeMap and Random
+import java.util.concurrent.TimeUnit;                   // For the reported time unit
+import org.openjdk.jmh.annotations.*;                   // For the JMH benchmark annotations
+import org.openjdk.jmh.infra.Blackhole;                 // For consuming computed payslips
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class PayrollBenchmark {
+
+    private static final int SALARY_COUNT = 4096;      // Gross salaries looked up per deduction benchmark invocation
+
+    /**
+     * Weekly gross salaries and week start dates spread over all deduction brackets.
+     */
+    @State(Scope.Thread)
+    public static class Salaries {
+        final long[] grossSalaries = new long[SALARY_COUNT];          // Centavos
+        final LocalDate[] weekStarts = new LocalDate[SALARY_COUNT];
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random random = new Random(19L);
+            LocalDate firstWeek = LocalDate.of(2024, 6, 3);
+            for (int i = 0; i < SALARY_COUNT; i++) {
+                grossSalaries[i] = random.nextLong(4_000_000);               // Up to above the highest weekly bracket
+                weekStarts[i] = firstWeek.plusWeeks(random.nextInt(52));
+            }
+        }
+    }
+
+    /**
+     * Looks up the deduction tables in effect for a week and computes all four deductions.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SALARY_COUNT)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long deductionLookup(Salaries salaries) {
+        long total = 0;
+        for (int i = 0; i < SALARY_COUNT; i++) {
+            DeductionTables deductionTables = MotorPH.deductionTablesFor(salaries.weekStarts[i]);
+            long grossSalary = salaries.grossSalaries[i];
+            total += deductionTables.sssContribution(grossSalary, RoundingMode.HALF_UP)
+                    + deductionTables.philHealthContribution(grossSalary, RoundingMode.HALF_UP)
+                    + deductionTables.pagIbigContribution(grossSalary, RoundingMode.HALF_UP)
+                    + deductionTables.withholdingTax(grossSalary, RoundingMode.HALF_UP);
+        }
+        return total;
+    }
+
+    /**
+     * Computes the weekly payslips of every employee on one thread.
+     */
+    @Benchmark
+    public void computePayslips(PayrollDataSet data, Blackhole blackhole) {
+        for (Employee employee : data.employees.all()) {
+            TreeMap<LocalDate, Duration[]> weeklyRecords = data.attendanceIndex.getOrDefault(Integer.toString(employee.employeeNumber()), new TreeMap<>());
+            blackhole.consume(MotorPH.computePayslips(employee, weeklyRecords));
+        }
+    }
+
+    /**
+     * Payslips of every employee, computed once per trial, and the output format they are rendered in.
+     */
+    @State(Scope.Benchmark)
+    public static class Rendering {
+        @Param({PayslipSink.CONSOLE, PayslipSink.CSV, PayslipSink.JSON_LINES, PayslipSink.BANK_FILE})
+        public String format;
+
+        List<Employee> employees;
+        List<List<Payslip>> payslips;
+
+        @Setup(Level.Trial)
+        public void compute(PayrollDataSet data) {
+            employees = data.employees.all();
+            payslips = new ArrayList<>(employees.size());
+            for (Employee employee : employees) {
+                payslips.add(MotorPH.computePayslips(employee,
+                        data.attendanceIndex.getOrDefault(Integer.toString(employee.employeeNumber()), new TreeMap<>())));
+            }
+        }
+    }
+
+    /**
+     * Renders the computed payslips of every employee through a payslip sink, discarding the output.
+     */
+    @Benchmark
+    public void renderPayroll(Rendering rendering) throws IOException {
+        try (PayslipSink sink = PayslipSink.open(rendering.format, OutputStream.nullOutputStream(), true)) {
+            for (int i = 0; i < rendering.employees.size(); i++) sink.write(rendering.employees.get(i), rendering.payslips.get(i));
+        }
+    }
+
+    /**
+     * Runs the batch payroll for all employees from the CSV files. The first invocation writes
+     * the attendance cache, so later invocations measure the cached path the way repeated runs do.
+     */
+    @Benchmark
+    public void processPayrollForAllEmployees(PayrollDataSet data) {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));       // Discard the printed payroll
+        try {
+            MotorPH.processPayrollForAllEmployees(data.employeeFilePath, data.attendanceFilePath, PayPeriod.ALL);
+        } finally {
+            System.setOut(console);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * This class generates synthetic MotorPH employee data and attendance record files for benchmarks.
+ * Employees are copies of the rows of the real employee data file with new employee numbers, so
+ * salaries, allowances and supervisors stay realistic, and attendance punches are spread over
+ * consecutive weekdays starting 06/03/2024 with random log in and log out times.
+ * Usage: {@code PayrollDataGenerator <outputDirectory> <employees> <punches> [seed]}
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import com.opencsv.CSVReader;                           // Library for reading CSV files
+import java.io.*;                                       // For file input/output operations
+import java.nio.charset.StandardCharsets;               // For writing the generated files
+import java.nio.file.*;                                 // For output file paths
+import java.time.*;                                     // For attendance dates
+import java.time.format.DateTimeFormatter;              // For formatting attendance dates
+import java.util.*;                                     // For collections like ArrayList and Random
+
+public final class PayrollDataGenerator {
+
+    static final String EMPLOYEE_FILE_NAME = "employeedata.csv";            // Name of the generated employee data file
+    static final String ATTENDANCE_FILE_NAME = "attendancerecord.csv";      // Name of the generated attendance records file
+    private static final String TEMPLATE_FILE_PATH = "src/main/employeedata.csv";   // Real employee data the employees are copied from
+    private static final int FIRST_EMPLOYEE_NUMBER = 10001;                 // Employee number of the first generated employee
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 6, 3);    // First attendance date (a Monday)
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");  // Date format of CSV dates
+
+    private PayrollDataGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: PayrollDataGenerator <outputDirectory> <employees> <punches> [seed]");
+            return;
+        }
+        Path directory = Files.createDirectories(Path.of(args[0]));
+        int employees = Integer.parseInt(args[1]);
+        long punches = Long.parseLong(args[2]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 19L;
+        generate(directory, employees, punches, seed);
+        System.out.println("Generated " + employees + " employees and " + punches + " attendance records in " + directory);
+    }
+
+    /**
+     * Writes an employee data file and an attendance records file into a directory.
+     *
+     * @param directory Directory the files are written to
+     * @param employees Number of employees
+     * @param punches Number of attendance records, spread evenly over the employees
+     * @param seed Seed of the random log in and log out times
+     * @throws IOException If the template cannot be read or the files cannot be written
+     */
+    static void generate(Path directory, int employees, long punches, long seed) throws IOException {
+        List<String[]> templates = readTemplates();
+        writeEmployees(directory.resolve(EMPLOYEE_FILE_NAME), templates, employees);
+        writeAttendance(directory.resolve(ATTENDANCE_FILE_NAME), templates, employees, punches, seed);
+    }
+
+    private static List<String[]> readTemplates() throws IOException {
+        List<String[]> templates = new ArrayList<>();
+        try (CSVReader reader = new CSVReader(new FileReader(TEMPLATE_FILE_PATH))) {
+            String[] header = reader.readNext();
+            templates.add(header);                              // First entry is the header row
+            String[] employeeData;
+            while ((employeeData = reader.readNext()) != null) {
+                if (employeeData.length >= 19) templates.add(employeeData);
+            }
+        } catch (com.opencsv.exceptions.CsvValidationException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return templates;
+    }
+
+    /**
+     * Copies the template rows with new employee numbers. Copies after the first round get a
+     * numbered first name so names stay unique; supervisors keep pointing at the first round.
+     */
+    private static void writeEmployees(Path file, List<String[]> templates, int employees) throws IOException {
+        int templateCount = templates.size() - 1;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeRow(out, templates.get(0));
+            for (int i = 0; i < employees; i++) {
+                String[] employeeData = templates.get(1 + i % templateCount).clone();
+                employeeData[0] = Integer.toString(FIRST_EMPLOYEE_NUMBER + i);
+                if (i >= templateCount) employeeData[2] = employeeData[2] + " " + (i / templateCount + 1);
+                writeRow(out, employeeData);
+            }
+        }
+    }
+
+    /**
+     * Writes one record per employee per weekday, day by day, until the requested number of records is reached.
+     * Log in times fall between 7:30 and 10:29 and log out times between 16:00 and 20:59, so the data
+     * covers on-time, grace period, late and overtime records.
+     */
+    private static void writeAttendance(Path file, List<String[]> templates, int employees, long punches, long seed) throws IOException {
+        int templateCount = templates.size() - 1;
+        Random random = new Random(seed);
+        String[] lastNames = new String[employees];
+        String[] firstNames = new String[employees];
+        for (int i = 0; i < employees; i++) {
+            String[] employeeData = templates.get(1 + i % templateCount);
+            lastNames[i] = csvField(employeeData[1]);
+            firstNames[i] = csvField(i >= templateCount ? employeeData[2] + " " + (i / templateCount + 1) : employeeData[2]);
+        }
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            out.write("Employee #,Last Name,First Name,Date,Log In,Log Out\n");
+            StringBuilder line = new StringBuilder(64);
+            LocalDate day = FIRST_DAY;
+            long written = 0;
+            while (written < punches) {
+                String date = day.format(DATE_FORMATTER);
+                for (int i = 0; i < employees && written < punches; i++, written++) {
+                    int logIn = 450 + random.nextInt(180);          // 7:30 to 10:29
+                    int logOut = 960 + random.nextInt(300);         // 16:00 to 20:59
+                    line.setLength(0);
+                    line.append(FIRST_EMPLOYEE_NUMBER + i).append(',').append(lastNames[i]).append(',').append(firstNames[i])
+                            .append(',').append(date).append(',');
+                    appendTime(line, logIn).append(',');
+                    appendTime(line, logOut).append('\n');
+                    out.append(line);
+                }
+                day = day.plusDays(day.getDayOfWeek() == DayOfWeek.FRIDAY ? 3 : 1);     // Weekdays only
+            }
+        }
+    }
+
+    private static StringBuilder appendTime(StringBuilder line, int minuteOfDay) {
+        int minute = minuteOfDay % 60;
+        return line.append(minuteOfDay / 60).append(':').append(minute < 10 ? "0" : "").append(minute);
+    }
+
+    private static void writeRow(BufferedWriter out, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) out.write(',');
+            out.write(csvField(fields[i]));
+        }
+        out.write('\n');
+    }
+
+    /**
+     * @return The field, quoted if it contains a comma or quote
+     */
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * This class is the benchmark state shared by the MotorPH payroll benchmarks.
+ * A synthetic data set of the size given by the {@code scale} parameter ("employees x punches")
+ * is generated into a temporary directory once per trial and loaded the way the batch payroll run loads it.
+ * Benchmarks must be run from the project root, where the deduction tables and the template employee data are found.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For file input/output operations
+import java.nio.file.*;                                 // For the temporary data directory
+import java.time.*;                                     // For week start dates and durations
+import java.util.*;                                     // For collections like List and TreeMap
+import java.util.concurrent.ForkJoinPool;               // For parsing the attendance file on multiple cores
+import org.openjdk.jmh.annotations.*;                   // For the JMH state annotations
+
+@State(Scope.Benchmark)
+public class PayrollDataSet {
+
+    /**
+     * Data set size as employees x attendance records; 34x5168 matches the size of the real data files.
+     */
+    @Param({"34x5168", "1000x250000", "100000x5000000"})
+    public String scale;
+
+    Path directory;                 // Temporary directory holding the generated files
+    String employeeFilePath;
+    String attendanceFilePath;
+    ForkJoinPool workerPool;        // Pool sized like the batch payroll run's pool
+    EmployeeRepository employees;
+    AttendanceShards attendance;    // The parsed attendance file as a single shard
+    Map<String, TreeMap<LocalDate, Duration[]>> attendanceIndex;     // Weekly records of all employees
+    WeeklyAttendanceIndex weeks;    // Week-bucketed totals of all employees
+    PayPeriod lastWeek;             // Last week with attendance
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        String[] size = scale.split("x");
+        directory = Files.createTempDirectory("motorph-benchmark");
+        PayrollDataGenerator.generate(directory, Integer.parseInt(size[0]), Long.parseLong(size[1]), 19L);
+        employeeFilePath = directory.resolve(PayrollDataGenerator.EMPLOYEE_FILE_NAME).toString();
+        attendanceFilePath = directory.resolve(PayrollDataGenerator.ATTENDANCE_FILE_NAME).toString();
+        workerPool = new ForkJoinPool(Integer.getInteger("motorph.workers", Runtime.getRuntime().availableProcessors()));
+
+        employees = EmployeeRepository.load(employeeFilePath);
+        attendance = new AttendanceShards(List.of(parseAttendance()), PayPeriod.ALL, 0);
+        WeeklyAttendance totals = MotorPH.aggregateAttendance(attendance, workerPool, new PayrollMetrics("benchmark"));
+        attendanceIndex = totals.toWeeklyRecords();
+        weeks = WeeklyAttendanceIndex.of(totals);
+        LocalDate lastWeekStart = attendanceIndex.values().stream().map(TreeMap::lastKey).max(Comparator.naturalOrder()).orElseThrow();
+        lastWeek = new PayPeriod(lastWeekStart, lastWeekStart.plusDays(6));
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        workerPool.shutdown();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Parses the attendance file in parallel into columns, bypassing the attendance cache.
+     */
+    AttendanceColumns parseAttendance() throws IOException {
+        return MappedAttendanceReader.read(attendanceFilePath, workerPool, AttendanceColumns.Builder::new,
+                builder -> builder, AttendanceColumns.Builder::append, null).build();
+    }
+}
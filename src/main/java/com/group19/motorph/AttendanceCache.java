@@ -0,0 +1,139 @@
+/**
+ * This class keeps a columnar binary cache of parsed attendance next to the attendance CSV file.
+ * The cache is written the first time a CSV file is ingested and reused on later runs as long as
+ * the CSV file's size and last-modified time are unchanged, so startup does not parse the CSV again.
+ * Each column is mapped as one buffer, so a file with more rows than a 2 GB column can hold is not
+ * cached and is parsed from the CSV file on every run.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For file input/output operations
+import java.nio.*;                                      // For reading and writing binary columns
+import java.nio.channels.FileChannel;                   // For mapping the cache file
+import java.nio.file.*;                                 // For file paths and attributes
+import java.util.concurrent.ForkJoinPool;               // For parsing the CSV file on multiple cores
+
+final class AttendanceCache {
+
+    private static final String CACHE_SUFFIX = ".cache";        // Cache file name is the CSV file name plus this suffix
+    private static final int MAGIC = 0x4D504841;                // "MPHA" marks a MotorPH attendance cache file
+    private static final int FORMAT_VERSION = 2;                // Bumped whenever the file layout changes
+    private static final int HEADER_SIZE = 40;                  // magic, version, source size, source mtime, row count, employee count, skipped rows, malformed rows
+    static final int MAX_CACHED_ROWS = Integer.MAX_VALUE / 4;   // Most rows whose int columns can each be mapped as one buffer
+
+    private AttendanceCache() {
+    }
+
+    /**
+     * Loads the attendance of a CSV file from its cache, or parses the CSV file and writes the
+     * cache if the cache is missing or out of date.
+     *
+     * @param attendanceFilePath Path to the attendance records CSV file
+     * @param workerPool Pool the CSV file is parsed on when the cache cannot be used
+     * @param malformedRowHandler Handler for malformed rows found while parsing the CSV file (may be null)
+     * @return The attendance records in columnar form
+     * @throws IOException If the CSV file cannot be read
+     */
+    static AttendanceColumns load(String attendanceFilePath, ForkJoinPool workerPool,
+                                  AttendanceParser.MalformedRowHandler malformedRowHandler) throws IOException {
+        Path source = Path.of(attendanceFilePath);
+        Path cache = Path.of(attendanceFilePath + CACHE_SUFFIX);
+        long sourceSize = Files.size(source);
+        long sourceModified = Files.getLastModifiedTime(source).toMillis();
+
+        AttendanceColumns columns = read(cache, sourceSize, sourceModified);
+        if (columns != null) return columns;
+
+        columns = MappedAttendanceReader.read(attendanceFilePath, workerPool, AttendanceColumns.Builder::new,
+                builder -> builder, AttendanceColumns.Builder::append, malformedRowHandler).build();
+        if (columns.rowCount() > MAX_CACHED_ROWS) return columns;          // Could not be mapped back
+        try {
+            write(cache, columns, sourceSize, sourceModified);
+        } catch (IOException e) {
+            System.err.println("Warning: could not write attendance cache " + cache + ": " + e.getMessage());   // The cache is optional
+        }
+        return columns;
+    }
+
+    /**
+     * Maps a cache file if it was written for a CSV file of the given size and last-modified time.
+     *
+     * @return The cached columns, or null if the cache is missing, stale, unreadable or too large to map
+     */
+    static AttendanceColumns read(Path cache, long sourceSize, long sourceModified) {
+        if (!Files.isRegularFile(cache)) return null;
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) return null;
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION
+                    || header.getLong() != sourceSize || header.getLong() != sourceModified) return null;
+            int rowCount = header.getInt();
+            int employeeCount = header.getInt();
+            int skippedRowCount = header.getInt();
+            int malformedRowCount = header.getInt();
+            long columnBytes = 4L * rowCount;
+            long position = HEADER_SIZE;
+            long expectedSize = position + 4L * (2L * employeeCount + 1) + 4 * columnBytes;
+            if (rowCount < 0 || rowCount > MAX_CACHED_ROWS || employeeCount < 0 || employeeCount > rowCount
+                    || channel.size() != expectedSize) return null;
+
+            int[] employeeIds = new int[employeeCount];
+            int[] employeeOffsets = new int[employeeCount + 1];
+            mapInts(channel, position, employeeCount).get(employeeIds);
+            position += 4L * employeeCount;
+            mapInts(channel, position, employeeCount + 1).get(employeeOffsets);
+            position += 4L * (employeeCount + 1);
+            if (employeeOffsets[employeeCount] != rowCount) return null;
+
+            IntBuffer employeeIdColumn = mapInts(channel, position, rowCount);
+            IntBuffer epochDays = mapInts(channel, position += columnBytes, rowCount);
+            IntBuffer logInMinutes = mapInts(channel, position += columnBytes, rowCount);
+            IntBuffer logOutMinutes = mapInts(channel, position + columnBytes, rowCount);
+            return new AttendanceColumns(employeeIds, employeeOffsets, employeeIdColumn, epochDays, logInMinutes, logOutMinutes,
+                    skippedRowCount, malformedRowCount);
+        } catch (IOException e) {
+            return null;            // Fall back to parsing the CSV file
+        }
+    }
+
+    /**
+     * Writes columns to a cache file. The file is written under a temporary name and then moved
+     * into place so that a partly written cache is never read.
+     */
+    static void write(Path cache, AttendanceColumns columns, long sourceSize, long sourceModified) throws IOException {
+        Path temporary = cache.resolveSibling(cache.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(sourceSize).putLong(sourceModified)
+                    .putInt(columns.rowCount()).putInt(columns.employeeCount())
+                    .putInt(columns.skippedRowCount).putInt(columns.malformedRowCount);
+            writeInts(channel, buffer, IntBuffer.wrap(columns.employeeIds));
+            writeInts(channel, buffer, IntBuffer.wrap(columns.employeeOffsets));
+            writeInts(channel, buffer, columns.employeeIdColumn.duplicate().rewind());
+            writeInts(channel, buffer, columns.epochDays.duplicate().rewind());
+            writeInts(channel, buffer, columns.logInMinutes.duplicate().rewind());
+            writeInts(channel, buffer, columns.logOutMinutes.duplicate().rewind());
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+        Files.move(temporary, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, IntBuffer values) throws IOException {
+        while (values.hasRemaining()) {
+            if (buffer.remaining() < 4) {
+                buffer.flip();
+                while (buffer.hasRemaining()) channel.write(buffer);
+                buffer.clear();
+            }
+            buffer.putInt(values.get());
+        }
+    }
+}
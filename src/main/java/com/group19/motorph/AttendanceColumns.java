@@ -0,0 +1,184 @@
+/**
+ * This class holds parsed attendance records in columnar form.
+ * Records are sorted by employee number and stored as int columns (employee number, epoch day,
+ * log in minute, log out minute) with a per-employee offset index, so all records of one
+ * employee can be found by binary search. Columns are either heap arrays or views of a
+ * memory-mapped cache file written by {@link AttendanceCache}.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.nio.IntBuffer;                              // For columns backed by arrays or mapped files
+import java.util.Arrays;                                // For sorting and growing columns
+
+final class AttendanceColumns {
+
+    final int[] employeeIds;            // Distinct employee numbers in ascending order
+    final int[] employeeOffsets;        // Row where each employee's records start; last entry is the row count
+    final IntBuffer employeeIdColumn;   // Employee number of each row
+    final IntBuffer epochDays;          // Date of each row as days since 1970-01-01
+    final IntBuffer logInMinutes;       // Log in time of each row as minute of the day
+    final IntBuffer logOutMinutes;      // Log out time of each row as minute of the day
+    final int skippedRowCount;          // Rows of the CSV file skipped because the log in or log out time is missing
+    final int malformedRowCount;        // Rows of the CSV file that could not be parsed
+
+    AttendanceColumns(int[] employeeIds, int[] employeeOffsets, IntBuffer employeeIdColumn, IntBuffer epochDays,
+                      IntBuffer logInMinutes, IntBuffer logOutMinutes, int skippedRowCount, int malformedRowCount) {
+        this.employeeIds = employeeIds;
+        this.employeeOffsets = employeeOffsets;
+        this.employeeIdColumn = employeeIdColumn;
+        this.epochDays = epochDays;
+        this.logInMinutes = logInMinutes;
+        this.logOutMinutes = logOutMinutes;
+        this.skippedRowCount = skippedRowCount;
+        this.malformedRowCount = malformedRowCount;
+    }
+
+    int rowCount() {
+        return employeeOffsets[employeeOffsets.length - 1];
+    }
+
+    int employeeCount() {
+        return employeeIds.length;
+    }
+
+    /**
+     * @return True if the columns are views of a cache file rather than freshly parsed
+     */
+    boolean isCached() {
+        return employeeIdColumn.isDirect();
+    }
+
+    /**
+     * Passes every record to the handler, grouped by employee in ascending employee number order
+     * and in file order within an employee.
+     *
+     * @param handler Receives each record
+     */
+    void forEachRecord(AttendanceParser.RecordHandler handler) {
+        forEachRecord(0, rowCount(), handler);
+    }
+
+    /**
+     * Passes the records of one employee to the handler in file order.
+     *
+     * @param employeeId Employee number
+     * @param handler Receives each record
+     * @return False if the employee has no records
+     */
+    boolean forEachRecordOf(int employeeId, AttendanceParser.RecordHandler handler) {
+        int index = Arrays.binarySearch(employeeIds, employeeId);
+        if (index < 0) return false;
+        forEachRecord(employeeOffsets[index], employeeOffsets[index + 1], handler);
+        return true;
+    }
+
+    private void forEachRecord(int fromRow, int toRow, AttendanceParser.RecordHandler handler) {
+        for (int row = fromRow; row < toRow; row++) {
+            handler.onRecord(employeeIdColumn.get(row), epochDays.get(row), logInMinutes.get(row), logOutMinutes.get(row));
+        }
+    }
+
+    /**
+     * Collects records in file order and sorts them into columns.
+     */
+    static final class Builder implements AttendanceParser.RecordHandler {
+        private static final int MAX_ROWS = Integer.MAX_VALUE - 8;     // Largest array the JVM can allocate
+        private int[] employeeIds = new int[1024];
+        private int[] epochDays = new int[1024];
+        private int[] logInMinutes = new int[1024];
+        private int[] logOutMinutes = new int[1024];
+        private int size;
+        private int skippedRows;
+        private int malformedRows;
+
+        @Override
+        public void onRecord(int employeeId, int epochDay, int logInMinute, int logOutMinute) {
+            if (size == employeeIds.length) grow(size + 1L);
+            employeeIds[size] = employeeId;
+            epochDays[size] = epochDay;
+            logInMinutes[size] = logInMinute;
+            logOutMinutes[size++] = logOutMinute;
+        }
+
+        @Override
+        public void onSkippedRow() {
+            skippedRows++;
+        }
+
+        @Override
+        public void onMalformedRow() {
+            malformedRows++;
+        }
+
+        /**
+         * Appends the records of another builder after the records of this one.
+         *
+         * @param other Builder holding the records that follow this builder's records
+         * @return This builder
+         */
+        Builder append(Builder other) {
+            long rows = (long) size + other.size;
+            if (rows > employeeIds.length) grow(rows);
+            System.arraycopy(other.employeeIds, 0, employeeIds, size, other.size);
+            System.arraycopy(other.epochDays, 0, epochDays, size, other.size);
+            System.arraycopy(other.logInMinutes, 0, logInMinutes, size, other.size);
+            System.arraycopy(other.logOutMinutes, 0, logOutMinutes, size, other.size);
+            size += other.size;
+            skippedRows += other.skippedRows;
+            malformedRows += other.malformedRows;
+            return this;
+        }
+
+        /**
+         * @throws IllegalStateException If more records are needed than an array can hold
+         */
+        private void grow(long minCapacity) {
+            if (minCapacity > MAX_ROWS) {
+                throw new IllegalStateException("More than " + MAX_ROWS + " attendance records in one file; split the file "
+                        + "into shards or set -Dmotorph.memoryBudget to compute payroll out of core");
+            }
+            int capacity = (int) Math.min(MAX_ROWS, Math.max(minCapacity, 2L * employeeIds.length));
+            employeeIds = Arrays.copyOf(employeeIds, capacity);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            logInMinutes = Arrays.copyOf(logInMinutes, capacity);
+            logOutMinutes = Arrays.copyOf(logOutMinutes, capacity);
+        }
+
+        /**
+         * Sorts the collected records by employee number, keeping file order within an employee,
+         * and builds the per-employee index.
+         *
+         * @return The sorted columns
+         */
+        AttendanceColumns build() {
+            long[] order = new long[size];          // Employee number in the high bits, original row in the low bits
+            for (int row = 0; row < size; row++) order[row] = ((long) employeeIds[row] << 32) | row;
+            Arrays.parallelSort(order);
+
+            int[] sortedIds = new int[size];
+            int[] sortedDays = new int[size];
+            int[] sortedLogIns = new int[size];
+            int[] sortedLogOuts = new int[size];
+            int[] distinctIds = new int[size];
+            int[] offsets = new int[size + 1];
+            int employees = 0;
+            for (int row = 0; row < size; row++) {
+                int source = (int) order[row];
+                sortedIds[row] = employeeIds[source];
+                sortedDays[row] = epochDays[source];
+                sortedLogIns[row] = logInMinutes[source];
+                sortedLogOuts[row] = logOutMinutes[source];
+                if (employees == 0 || distinctIds[employees - 1] != sortedIds[row]) {
+                    distinctIds[employees] = sortedIds[row];
+                    offsets[employees++] = row;
+                }
+            }
+            offsets[employees] = size;
+            return new AttendanceColumns(Arrays.copyOf(distinctIds, employees), Arrays.copyOf(offsets, employees + 1),
+                    IntBuffer.wrap(sortedIds), IntBuffer.wrap(sortedDays), IntBuffer.wrap(sortedLogIns), IntBuffer.wrap(sortedLogOuts),
+                    skippedRows, malformedRows);
+        }
+    }
+}
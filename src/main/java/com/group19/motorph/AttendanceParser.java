@@ -0,0 +1,305 @@
+/**
+ * This class parses MotorPH attendance records directly from bytes.
+ * The employee number, date (MM/dd/yyyy) and log in/out times (H:mm) of each row are decoded
+ * into primitive ints (employee number, epoch day, minute of day) without creating Strings or
+ * java.time objects, and malformed rows are counted and reported through a callback instead of exceptions.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For reading attendance streams
+import java.nio.ByteBuffer;                             // For parsing attendance data held in memory
+import java.util.Arrays;                                // For growing the read buffer
+
+final class AttendanceParser {
+
+    private static final int BUFFER_SIZE = 1 << 16;     // Read buffer size used when parsing from a stream
+    private static final int FIELD_COUNT = 6;           // Employee #, Last Name, First Name, Date, Log In, Log Out
+
+    /**
+     * Receives each successfully parsed attendance row.
+     */
+    interface RecordHandler {
+        /**
+         * @param employeeId Employee number
+         * @param epochDay Date of the record as days since 1970-01-01
+         * @param logInMinute Log in time as minute of the day
+         * @param logOutMinute Log out time as minute of the day
+         */
+        void onRecord(int employeeId, int epochDay, int logInMinute, int logOutMinute);
+
+        /**
+         * Called for each row skipped because its log in or log out time is missing.
+         */
+        default void onSkippedRow() {
+        }
+
+        /**
+         * Called for each row that could not be parsed, in addition to the malformed row handler.
+         */
+        default void onMalformedRow() {
+        }
+    }
+
+    /**
+     * Receives the position of each row that could not be parsed.
+     */
+    interface MalformedRowHandler {
+        /**
+         * @param rowOffset Byte offset of the start of the malformed row in the attendance data
+         */
+        void onMalformedRow(long rowOffset);
+    }
+
+    private final RecordHandler recordHandler;
+    private final MalformedRowHandler malformedRowHandler;
+    private final int[] fieldStarts = new int[FIELD_COUNT];    // Start index of each field of the current row
+    private final int[] fieldEnds = new int[FIELD_COUNT];      // End index (exclusive) of each field of the current row
+    private long recordCount;        // Rows passed to the record handler
+    private long skippedCount;      // Rows skipped because the log in or log out time is missing
+    private long malformedCount;    // Rows that could not be parsed
+
+    /**
+     * @param recordHandler Handler for parsed rows
+     * @param malformedRowHandler Handler for malformed rows (may be null to only count them)
+     */
+    AttendanceParser(RecordHandler recordHandler, MalformedRowHandler malformedRowHandler) {
+        this.recordHandler = recordHandler;
+        this.malformedRowHandler = malformedRowHandler;
+    }
+
+    long recordCount() {
+        return recordCount;
+    }
+
+    long skippedCount() {
+        return skippedCount;
+    }
+
+    long malformedCount() {
+        return malformedCount;
+    }
+
+    /**
+     * Parses all attendance rows read from a stream, skipping the header row.
+     *
+     * @param in Stream of attendance CSV data
+     * @throws IOException If the stream cannot be read
+     */
+    void parse(InputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteBuffer data = ByteBuffer.wrap(buffer);
+        int length = 0;                 // Bytes currently held in the buffer
+        long bufferOffset = 0;          // Offset of buffer[0] in the stream
+        boolean headerSkipped = false;
+        int read;
+        while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            int lastNewline = lastIndexOf(buffer, length, (byte) '\n');
+            if (lastNewline < 0) {
+                if (length == buffer.length) {          // Row longer than the buffer
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    data = ByteBuffer.wrap(buffer);
+                }
+                continue;
+            }
+            int start = 0;
+            if (!headerSkipped) {
+                start = indexOf(data, 0, length, (byte) '\n') + 1;
+                headerSkipped = true;
+            }
+            parseRows(data, start, lastNewline + 1, bufferOffset);
+            int remaining = length - (lastNewline + 1);
+            System.arraycopy(buffer, lastNewline + 1, buffer, 0, remaining);    // Keep the partial last row
+            bufferOffset += lastNewline + 1;
+            length = remaining;
+        }
+        if (length > 0 && headerSkipped) parseRows(data, 0, length, bufferOffset);     // Last row without a newline
+    }
+
+    /**
+     * Parses the attendance rows between the buffer's position and limit in place, so a
+     * memory-mapped buffer is read without copying. The buffer must hold whole rows only and
+     * no header row; its position is advanced to its limit.
+     *
+     * @param buffer Attendance CSV data
+     * @param bufferOffset Offset of the buffer's position in the attendance data, used to report malformed rows
+     */
+    void parse(ByteBuffer buffer, long bufferOffset) {
+        parseRows(buffer, buffer.position(), buffer.limit(), bufferOffset - buffer.position());
+        buffer.position(buffer.limit());
+    }
+
+    /**
+     * Parses every row in {@code data[from, to)}.
+     *
+     * @param data Attendance CSV bytes
+     * @param from Index of the first byte of the first row
+     * @param to Index just past the last row
+     * @param dataOffset Offset of index 0 of data in the attendance data
+     */
+    private void parseRows(ByteBuffer data, int from, int to, long dataOffset) {
+        int rowStart = from;
+        while (rowStart < to) {
+            int rowEnd = indexOf(data, rowStart, to, (byte) '\n');
+            if (rowEnd < 0) rowEnd = to;
+            int contentEnd = rowEnd;
+            if (contentEnd > rowStart && data.get(contentEnd - 1) == '\r') contentEnd--;     // Windows line endings
+            if (contentEnd > rowStart) parseRow(data, rowStart, contentEnd, dataOffset + rowStart);
+            rowStart = rowEnd + 1;
+        }
+    }
+
+    /**
+     * Splits one row into fields (honouring double-quoted fields) and decodes the fields used for payroll.
+     */
+    private void parseRow(ByteBuffer data, int start, int end, long rowOffset) {
+        int field = 0;
+        int fieldStart = start;
+        boolean quoted = false;
+        for (int i = start; i < end && field < FIELD_COUNT; i++) {
+            byte b = data.get(i);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == ',' && !quoted) {
+                fieldStarts[field] = fieldStart;
+                fieldEnds[field++] = i;
+                fieldStart = i + 1;
+            }
+        }
+        if (field == FIELD_COUNT - 1) {             // Last field runs to the end of the row
+            fieldStarts[field] = fieldStart;
+            fieldEnds[field++] = end;
+        }
+        if (field < FIELD_COUNT) {
+            malformed(rowOffset);
+            return;
+        }
+
+        trimField(data, 4);
+        trimField(data, 5);
+        if (fieldStarts[4] == fieldEnds[4] || fieldStarts[5] == fieldEnds[5]) {   // Missing log in or log out time
+            skippedCount++;
+            recordHandler.onSkippedRow();
+            return;
+        }
+        int employeeId = parseEmployeeId(data);
+        int epochDay = parseDate(data);
+        int logInMinute = parseTime(data, 4);
+        int logOutMinute = parseTime(data, 5);
+        if (employeeId < 0 || epochDay == Integer.MIN_VALUE || logInMinute < 0 || logOutMinute < 0) {
+            malformed(rowOffset);
+            return;
+        }
+        recordCount++;
+        recordHandler.onRecord(employeeId, epochDay, logInMinute, logOutMinute);
+    }
+
+    private void malformed(long rowOffset) {
+        malformedCount++;
+        recordHandler.onMalformedRow();
+        if (malformedRowHandler != null) malformedRowHandler.onMalformedRow(rowOffset);
+    }
+
+    private void trimField(ByteBuffer data, int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        while (start < end && (data.get(start) == ' ' || data.get(start) == '"')) start++;
+        while (end > start && (data.get(end - 1) == ' ' || data.get(end - 1) == '"')) end--;
+        fieldStarts[field] = start;
+        fieldEnds[field] = end;
+    }
+
+    /**
+     * @return The employee number, or -1 if the field is not a number
+     */
+    private int parseEmployeeId(ByteBuffer data) {
+        trimField(data, 0);
+        int start = fieldStarts[0];
+        int end = fieldEnds[0];
+        if (start == end || end - start > 9) return -1;
+        return parseDigits(data, start, end);
+    }
+
+    /**
+     * Decodes an MM/dd/yyyy date.
+     *
+     * @return The date as days since 1970-01-01, or Integer.MIN_VALUE if the date is invalid
+     */
+    private int parseDate(ByteBuffer data) {
+        trimField(data, 3);
+        int start = fieldStarts[3];
+        if (fieldEnds[3] - start != 10 || data.get(start + 2) != '/' || data.get(start + 5) != '/') return Integer.MIN_VALUE;
+        int month = parseDigits(data, start, start + 2);
+        int day = parseDigits(data, start + 3, start + 5);
+        int year = parseDigits(data, start + 6, start + 10);
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) return Integer.MIN_VALUE;
+        return epochDay(year, month, day);
+    }
+
+    /**
+     * Decodes an H:mm time (already trimmed).
+     *
+     * @return The time as minute of the day, or -1 if the time is invalid
+     */
+    private int parseTime(ByteBuffer data, int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        int length = end - start;
+        if ((length != 4 && length != 5) || data.get(end - 3) != ':') return -1;
+        int hour = parseDigits(data, start, end - 3);
+        int minute = parseDigits(data, end - 2, end);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) return -1;
+        return hour * 60 + minute;
+    }
+
+    /**
+     * @return The value of the ASCII digits in {@code data[start, end)}, or -1 if any byte is not a digit
+     */
+    private static int parseDigits(ByteBuffer data, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = data.get(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> ((year & 3) == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * Converts a date to days since 1970-01-01 using the same proleptic Gregorian
+     * calculation as {@link java.time.LocalDate#toEpochDay()}.
+     */
+    static int epochDay(int year, int month, int day) {
+        long total = 365L * year;
+        if (year >= 0) total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        else total -= year / -4 - year / -100 + year / -400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) total -= ((year & 3) == 0 && (year % 100 != 0 || year % 400 == 0)) ? 1 : 2;
+        return (int) (total - 719528);      // Days from year 0 to 1970
+    }
+
+    private static int indexOf(ByteBuffer data, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (data.get(i) == value) return i;
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] data, int length, byte value) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (data[i] == value) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * This class holds the loaded attendance shards of a pay period: one set of attendance columns per
+ * attendance file, plus the pay period their records are filtered by. Records are only ever passed
+ * on if they fall within the pay period.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.util.*;                                     // For collections like List
+
+final class AttendanceShards {
+
+    private final List<AttendanceColumns> shards;       // Attendance of each loaded file, in file name order
+    private final PayPeriod period;                     // Only records within this period are passed on
+    private final int skippedShardCount;                // Files skipped without being read because they are outside the period
+
+    /**
+     * @param shards Attendance of each loaded file, in file name order
+     * @param period Only records within this period are passed on
+     * @param skippedShardCount Files skipped without being read because they are outside the period
+     */
+    AttendanceShards(List<AttendanceColumns> shards, PayPeriod period, int skippedShardCount) {
+        this.shards = shards;
+        this.period = period;
+        this.skippedShardCount = skippedShardCount;
+    }
+
+    /**
+     * @return Attendance of each loaded file, in file name order; records are not filtered by the period
+     */
+    List<AttendanceColumns> shards() {
+        return shards;
+    }
+
+    PayPeriod period() {
+        return period;
+    }
+
+    int skippedShardCount() {
+        return skippedShardCount;
+    }
+
+    /**
+     * @return Records of all loaded files, including those outside the period
+     */
+    long rowCount() {
+        long rows = 0;
+        for (AttendanceColumns shard : shards) rows += shard.rowCount();
+        return rows;
+    }
+
+    long skippedRowCount() {
+        long rows = 0;
+        for (AttendanceColumns shard : shards) rows += shard.skippedRowCount;
+        return rows;
+    }
+
+    long malformedRowCount() {
+        long rows = 0;
+        for (AttendanceColumns shard : shards) rows += shard.malformedRowCount;
+        return rows;
+    }
+
+    /**
+     * @return True if every loaded file was read from its cache
+     */
+    boolean isCached() {
+        for (AttendanceColumns shard : shards) {
+            if (!shard.isCached()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Passes the records of one shard that fall within the period to the handler.
+     *
+     * @param shard Shard to read
+     * @param handler Receives each record
+     */
+    void forEachRecord(AttendanceColumns shard, AttendanceParser.RecordHandler handler) {
+        shard.forEachRecord(period.filter(handler));
+    }
+
+    /**
+     * Passes one employee's records that fall within the period to the handler, shard by shard.
+     *
+     * @param employeeId Employee number
+     * @param handler Receives each record
+     */
+    void forEachRecordOf(int employeeId, AttendanceParser.RecordHandler handler) {
+        AttendanceParser.RecordHandler inPeriod = period.filter(handler);
+        for (AttendanceColumns shard : shards) shard.forEachRecordOf(employeeId, inPeriod);
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * This class resolves where attendance is read from. The attendance location may be a single CSV
+ * file, a directory (every {@code .csv} file below it is a shard, as the timekeeping system writes one
+ * file per site per day) or a glob pattern such as {@code attendance/2024-06-*.csv} (of whose matches,
+ * too, only {@code .csv} files are shards, so caches and state files beside them are never read). Shards
+ * are loaded in parallel, each through its own attendance cache. When a pay period is given, a shard
+ * whose file name holds dates (yyyy-MM-dd or yyyyMMdd) that all fall outside the period, and whose
+ * range from the earliest to the latest of them does not overlap it, is skipped without being read.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For file input/output operations
+import java.nio.file.*;                                 // For listing and matching shard files
+import java.time.*;                                     // For shard dates
+import java.util.*;                                     // For collections like List
+import java.util.concurrent.ExecutionException;         // For failures raised by shard tasks
+import java.util.concurrent.ForkJoinPool;               // For loading shards on multiple cores
+import java.util.regex.*;                               // For finding the date in a shard file name
+import java.util.stream.Stream;                         // For walking shard directories
+
+final class AttendanceSource {
+
+    private static final String GLOB_CHARACTERS = "*?[{";                  // A location containing any of these is a glob pattern
+    private static final String SHARD_SUFFIX = ".csv";                     // Files of a shard directory that are read
+    private static final Pattern SHARD_DATE = Pattern.compile("(?<!\\d)(\\d{4})-?(\\d{2})-?(\\d{2})(?!\\d)");   // Date in a shard file name
+
+    private AttendanceSource() {
+    }
+
+    /**
+     * Lists the attendance files of a location in file name order.
+     *
+     * @param location Attendance CSV file, directory of CSV files, or glob pattern
+     * @return Paths of the attendance files
+     * @throws IOException If a directory cannot be listed or holds no attendance files, or a pattern matches no files
+     */
+    static List<Path> shardPaths(String location) throws IOException {
+        int firstGlob = indexOfGlob(location);
+        if (firstGlob >= 0) {
+            // Walk from the directory part before the first glob character and match the whole pattern
+            int separator = location.lastIndexOf('/', firstGlob);
+            Path root = Path.of(separator < 0 ? "" : location.substring(0, separator + 1));
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + location);
+            List<Path> paths = walk(root, file -> matcher.matches(file) && file.getFileName().toString().endsWith(SHARD_SUFFIX));
+            if (paths.isEmpty()) throw new NoSuchFileException(location, null, "no attendance files match");
+            return paths;
+        }
+        Path path = Path.of(location);
+        if (!Files.isDirectory(path)) return List.of(path);
+        List<Path> paths = walk(path, file -> file.getFileName().toString().endsWith(SHARD_SUFFIX));
+        if (paths.isEmpty()) throw new NoSuchFileException(location, null, "no attendance files in directory");
+        return paths;
+    }
+
+    /**
+     * Checks whether a shard may hold records within a pay period, judging by the dates in its file name.
+     * A name with one date (e.g. {@code siteA-2024-06-10.csv}) is a shard of that day; a name with more
+     * (e.g. {@code 20240601-20240615.csv}, or a day and an export date) may hold any day from the
+     * earliest to the latest of them.
+     *
+     * @param shard Path of the attendance file
+     * @param period Pay period
+     * @return False only if the dates in the file name span a range outside the period
+     */
+    static boolean mayContain(Path shard, PayPeriod period) {
+        if (period.isAll()) return true;
+        LocalDate first = null;
+        LocalDate last = null;
+        Matcher matcher = SHARD_DATE.matcher(shard.getFileName().toString());
+        while (matcher.find()) {
+            try {
+                LocalDate date = LocalDate.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
+                        Integer.parseInt(matcher.group(3)));
+                if (first == null || date.isBefore(first)) first = date;
+                if (last == null || date.isAfter(last)) last = date;
+            } catch (DateTimeException e) {
+                // Not a date; keep looking
+            }
+        }
+        return first == null || period.overlaps(first, last);     // No date in the name, so the file has to be read
+    }
+
+    /**
+     * Loads the attendance shards of a location that may hold records within the pay period.
+     * Shards are loaded in parallel on the worker pool.
+     *
+     * @param location Attendance CSV file, directory of CSV files, or glob pattern
+     * @param period Pay period to load
+     * @param workerPool Pool the shards are loaded on
+     * @param malformedRowHandler Handler for malformed rows found while parsing a CSV file (may be null)
+     * @return The loaded shards
+     * @throws IOException If an attendance file cannot be read
+     */
+    static AttendanceShards load(String location, PayPeriod period, ForkJoinPool workerPool,
+                                 AttendanceParser.MalformedRowHandler malformedRowHandler) throws IOException {
+        List<Path> paths = shardPaths(location);
+        List<Path> inPeriod = paths.stream().filter(path -> mayContain(path, period)).toList();
+        if (inPeriod.size() <= 1) {         // A single file is parsed in parallel by itself
+            List<AttendanceColumns> shards = new ArrayList<>(1);
+            for (Path path : inPeriod) shards.add(AttendanceCache.load(path.toString(), workerPool, malformedRowHandler));
+            return new AttendanceShards(shards, period, paths.size() - inPeriod.size());
+        }
+        try {
+            List<AttendanceColumns> shards = workerPool.submit(() -> inPeriod.parallelStream()
+                    .map(path -> {
+                        try {
+                            return AttendanceCache.load(path.toString(), workerPool, malformedRowHandler);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toList()).get();
+            return new AttendanceShards(shards, period, paths.size() - inPeriod.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading " + location);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException unchecked) throw unchecked.getCause();
+            throw new IOException("Error loading " + location + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static int indexOfGlob(String location) {
+        for (int i = 0; i < location.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(location.charAt(i)) >= 0) return i;
+        }
+        return -1;
+    }
+
+    private static List<Path> walk(Path root, PathMatcher filter) throws IOException {
+        try (Stream<Path> paths = Files.walk(root.toString().isEmpty() ? Path.of(".") : root)) {
+            return paths.map(path -> root.toString().isEmpty() ? Path.of(".").relativize(path) : path)
+                    .filter(path -> Files.isRegularFile(path) && filter.matches(path))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * This class writes payslips as a fixed-width bank upload file of 80-byte ASCII records.
+ * Each employee-week is a detail record crediting the week's net salary, and the file ends with
+ * a trailer record holding the number of detail records and their total amount. Names are
+ * transliterated to ASCII (accents are dropped, so "Peña" becomes "Pena", and any other character
+ * becomes '?'), so every character of a record is one byte and the fields stay in position.
+ * <pre>
+ * Detail:  pos 1     'D'
+ *          pos 2-11  employee number, zero-padded
+ *          pos 12-51 employee name ("Last, First"), left-aligned, space-padded, cut off at 40 characters
+ *          pos 52-59 pay period end date, yyyyMMdd
+ *          pos 60    '+' or '-'
+ *          pos 61-75 net salary in centavos, zero-padded
+ *          pos 76-80 spaces
+ * Trailer: pos 1     'T'
+ *          pos 2-11  number of detail records, zero-padded
+ *          pos 12    '+' or '-'
+ *          pos 13-30 total net salary in centavos, zero-padded
+ *          pos 31-80 spaces
+ * </pre>
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For file input/output operations
+import java.text.Normalizer;                            // For separating accents from letters
+import java.time.LocalDate;                             // For pay period end dates
+import java.util.*;                                     // For collections like List
+import java.util.regex.Pattern;                         // For removing accents
+
+final class BankFilePayslipWriter extends BufferedPayslipWriter {
+
+    private static final int RECORD_LENGTH = 80;       // Bytes per record, excluding the line ending
+    private static final int NAME_WIDTH = 40;           // Width of the employee name field
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");    // Accents left by decomposing a letter
+
+    private long recordCount;           // Detail records written so far
+    private long totalCentavos;         // Sum of the net salaries of the detail records
+
+    /**
+     * @param out Stream the bank file is written to
+     */
+    BankFilePayslipWriter(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(Employee employee, List<Payslip> payslips) throws IOException {
+        String name = payslips.isEmpty() ? "" : toAscii(payslips.get(0).fullName());     // Same on every payslip of the employee
+        for (Payslip payslip : payslips) {
+            long centavos = payslip.finalPay();
+            int start = buffer.length();
+            buffer.append('D');
+            appendPadded(payslip.employeeNumber(), 10, '0');
+            appendField(name, NAME_WIDTH);
+            LocalDate endOfWeek = payslip.endOfWeek();
+            appendPadded(endOfWeek.getYear(), 4, '0');
+            appendPadded(endOfWeek.getMonthValue(), 2, '0');
+            appendPadded(endOfWeek.getDayOfMonth(), 2, '0');
+            buffer.append(centavos < 0 ? '-' : '+');
+            appendPadded(Math.abs(centavos), 15, '0');
+            endRecord(start);
+            recordCount++;
+            totalCentavos += centavos;
+        }
+        flushIfFull();
+    }
+
+    @Override
+    public void close() throws IOException {
+        int start = buffer.length();
+        buffer.append('T');
+        appendPadded(recordCount, 10, '0');
+        buffer.append(totalCentavos < 0 ? '-' : '+');
+        appendPadded(Math.abs(totalCentavos), 18, '0');
+        endRecord(start);
+        super.close();
+    }
+
+    /**
+     * @return The text with accents removed, control characters as spaces and other non-ASCII characters as '?'
+     */
+    static String toAscii(String text) {
+        if (text.chars().allMatch(c -> c >= ' ' && c < 0x7F)) return text;      // Nearly every name
+        String decomposed = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder ascii = new StringBuilder(decomposed.length());
+        decomposed.codePoints().forEach(c -> ascii.append(c < ' ' ? ' ' : c < 0x7F ? (char) c : '?'));
+        return ascii.toString();
+    }
+
+    /**
+     * Pads the record that starts at {@code start} with spaces to the record length and ends the line.
+     */
+    private void endRecord(int start) {
+        while (buffer.length() - start < RECORD_LENGTH) buffer.append(' ');
+        buffer.append('\n');
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * This class is the base of the payslip sinks that write text.
+ * Output is assembled in one reusable character buffer and handed to the underlying stream in
+ * large blocks, and amounts, dates and numbers are appended digit by digit instead of through
+ * {@link String#format}, so writing a payslip allocates almost nothing.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For file input/output operations
+import java.nio.charset.StandardCharsets;               // For encoding the output
+import java.time.LocalDate;                             // For week start and end dates
+
+abstract class BufferedPayslipWriter implements PayslipSink {
+
+    private static final int FLUSH_THRESHOLD = 1 << 15;    // Buffered characters that trigger a write to the stream
+
+    protected final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);   // Output not yet written to the stream
+    private final Writer writer;
+    private char[] chars = new char[FLUSH_THRESHOLD + 1024];     // Reused to copy the buffer to the writer
+
+    /**
+     * @param out Stream the output is written to; closed when the writer is closed
+     */
+    protected BufferedPayslipWriter(OutputStream out) {
+        this.writer = new OutputStreamWriter(new BufferedOutputStream(out, 1 << 16), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the buffer to the stream once it holds enough output. Subclasses call this after each payslip.
+     */
+    protected final void flushIfFull() throws IOException {
+        if (buffer.length() >= FLUSH_THRESHOLD) drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        drain();
+        writer.close();
+    }
+
+    private void drain() throws IOException {
+        int length = buffer.length();
+        if (length == 0) return;
+        if (chars.length < length) chars = new char[length];
+        buffer.getChars(0, length, chars, 0);
+        writer.write(chars, 0, length);
+        buffer.setLength(0);
+    }
+
+    /**
+     * Appends an amount in centavos as pesos with two decimals.
+     */
+    protected final StringBuilder appendAmount(long centavos) {
+        return Money.append(buffer, centavos);
+    }
+
+    /**
+     * Appends a date as yyyy-MM-dd, the same as {@link LocalDate#toString()} for four-digit years.
+     */
+    protected final StringBuilder appendDate(LocalDate date) {
+        appendPadded(date.getYear(), 4, '0').append('-');
+        appendPadded(date.getMonthValue(), 2, '0').append('-');
+        return appendPadded(date.getDayOfMonth(), 2, '0');
+    }
+
+    /**
+     * Appends a non-negative number right-aligned in a field of the given width.
+     */
+    protected final StringBuilder appendPadded(long value, int width, char padding) {
+        for (long limit = 10, digits = 1; digits < width; limit *= 10, digits++) {
+            if (value < limit) buffer.append(padding);
+        }
+        return buffer.append(value);
+    }
+
+    /**
+     * Appends text left-aligned in a field of the given width, cut off if it is longer.
+     */
+    protected final StringBuilder appendField(String text, int width) {
+        int length = Math.min(text.length(), width);
+        buffer.append(text, 0, length);
+        for (int i = length; i < width; i++) buffer.append(' ');
+        return buffer;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * This class writes payslips as the human-readable weekly salary summary of the payroll menu.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For file input/output operations
+import java.util.*;                                     // For collections like List
+
+final class ConsolePayslipWriter extends BufferedPayslipWriter {
+
+    private static final String SEPARATOR = "-------------------------------------------------";
+    private static final String NEWLINE = System.lineSeparator();      // Same line ending as println
+
+    private final boolean employeeHeader;      // Whether each employee starts with an employee number, name and birthday block
+
+    /**
+     * @param out Stream the report is written to
+     * @param employeeHeader Whether each employee starts with an employee number, name and birthday block
+     */
+    ConsolePayslipWriter(OutputStream out, boolean employeeHeader) {
+        super(out);
+        this.employeeHeader = employeeHeader;
+    }
+
+    @Override
+    public void write(Employee employee, List<Payslip> payslips) throws IOException {
+        if (employeeHeader) {
+            // Display employee information (employee number, full name and birthday)
+            buffer.append(SEPARATOR).append(NEWLINE);
+            buffer.append("Employee Number: ").append(employee.employeeNumber()).append(NEWLINE);
+            buffer.append("Name: ").append(employee.fullName()).append(NEWLINE);
+            buffer.append("Birthday: ").append(employee.birthday()).append(NEWLINE);
+            buffer.append(SEPARATOR).append(NEWLINE);
+        }
+        if (payslips.isEmpty()) {
+            buffer.append("No valid attendance records found for ").append(employee.fullName()).append(NEWLINE);   // No records found
+        } else {
+            buffer.append("\nWeekly Salary Summary for ").append(employee.fullName()).append(':').append(NEWLINE);
+            buffer.append(SEPARATOR).append(NEWLINE);
+            for (Payslip payslip : payslips) writePayslip(payslip);        // Display the payroll details for each week
+        }
+        flushIfFull();
+    }
+
+    /**
+     * Writes a detailed payroll summary for a specific week, including hours worked,
+     * salary components, deductions, allowances, and net pay.
+     */
+    private void writePayslip(Payslip payslip) {
+        buffer.append("Week Period             : ");
+        appendDate(payslip.startOfWeek()).append(" - ");
+        appendDate(payslip.endOfWeek()).append(NEWLINE);
+        buffer.append("Total Hours Worked      : ").append(payslip.workMinutes() / 60).append("h ")
+                .append(payslip.workMinutes() % 60).append('m').append(NEWLINE);
+        buffer.append("Total Overtime          : ").append(payslip.overtimeMinutes() / 60).append("h ")
+                .append(payslip.overtimeMinutes() % 60).append('m').append(NEWLINE);
+        line("Base Salary             : PHP ", payslip.baseSalary());
+        line("Overtime Pay            : PHP ", payslip.overtimePay());
+        line("Gross Salary            : PHP ", payslip.grossSalary());
+        line("SSS Contribution        : PHP -", payslip.sssContribution());
+        line("PhilHealth Contribution : PHP -", payslip.philHealthContribution());
+        line("Pag-Ibig Contribution   : PHP -", payslip.pagIbigContribution());
+        line("Total Deductions        : PHP -", payslip.totalDeductions());
+        line("Withholding Tax         : PHP -", payslip.withholdingTax());
+        line("Allowances              : PHP ", payslip.totalAllowances());
+        line("\nNet Salary              : PHP ", payslip.finalPay());
+        buffer.append(SEPARATOR).append('-').append(NEWLINE);
+    }
+
+    private void line(String label, long amount) {
+        buffer.append(label);
+        appendAmount(amount).append(NEWLINE);
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * This class writes payslips as CSV, one row per employee-week after a header row.
+ * Amounts have two decimals and hours are given in minutes.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For file input/output operations
+import java.util.*;                                     // For collections like List
+
+final class CsvPayslipWriter extends BufferedPayslipWriter {
+
+    private static final String HEADER = "Employee #,Name,Week Start,Week End,Work Minutes,Overtime Minutes,"
+            + "Base Salary,Overtime Pay,Gross Salary,SSS Contribution,PhilHealth Contribution,Pag-Ibig Contribution,"
+            + "Total Deductions,Withholding Tax,Allowances,Net Salary\n";
+
+    /**
+     * @param out Stream the CSV rows are written to
+     */
+    CsvPayslipWriter(OutputStream out) {
+        super(out);
+        buffer.append(HEADER);
+    }
+
+    @Override
+    public void write(Employee employee, List<Payslip> payslips) throws IOException {
+        for (Payslip payslip : payslips) {
+            buffer.append(payslip.employeeNumber()).append(',');
+            appendQuoted(payslip.fullName()).append(',');
+            appendDate(payslip.startOfWeek()).append(',');
+            appendDate(payslip.endOfWeek()).append(',');
+            buffer.append(payslip.workMinutes()).append(',').append(payslip.overtimeMinutes());
+            amount(payslip.baseSalary());
+            amount(payslip.overtimePay());
+            amount(payslip.grossSalary());
+            amount(payslip.sssContribution());
+            amount(payslip.philHealthContribution());
+            amount(payslip.pagIbigContribution());
+            amount(payslip.totalDeductions());
+            amount(payslip.withholdingTax());
+            amount(payslip.totalAllowances());
+            amount(payslip.finalPay());
+            buffer.append('\n');
+        }
+        flushIfFull();
+    }
+
+    private void amount(long value) {
+        buffer.append(',');
+        appendAmount(value);
+    }
+
+    /**
+     * Appends a field, quoted if it contains a comma, quote or line break.
+     */
+    private StringBuilder appendQuoted(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) return buffer.append(value);
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') buffer.append('"');        // Double embedded quotes
+            buffer.append(c);
+        }
+        return buffer.append('"');
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * This class holds the statutory deduction tables (SSS, PhilHealth, Pag-IBIG and withholding tax)
+ * used by the MotorPH payroll system.
+ * Tables are loaded once from a versioned, effective-dated table file and stored as primitive
+ * fixed-point arrays, so looking up a deduction is a binary search that allocates nothing and
+ * computes the amount exactly before rounding it to whole centavos.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import com.opencsv.CSVReader;                           // Library for reading CSV files
+import java.io.*;                                       // For file input/output operations
+import java.math.RoundingMode;                          // For rounding deductions to centavos
+import java.time.LocalDate;                             // For effective dates of table versions
+import java.time.format.DateTimeFormatter;              // For parsing effective dates
+import java.util.*;                                     // For collections like ArrayList and TreeMap
+
+final class DeductionTables {
+
+    static final String SSS = "SSS";                            // Table name of the SSS contribution table
+    static final String PHILHEALTH = "PhilHealth";              // Table name of the PhilHealth contribution table
+    static final String PAG_IBIG = "Pag-IBIG";                  // Table name of the Pag-IBIG contribution table
+    static final String WITHHOLDING_TAX = "Withholding Tax";    // Table name of the withholding tax table
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");  // Date format of effective dates
+    private static final int AMOUNT_SCALE = 4;                  // Decimals kept of table amounts (e.g. 10208.3325)
+    private static final long UNITS_PER_CENTAVO = 100;          // Table amount units in one centavo
+
+    private final String version;           // Version label of this set of tables
+    private final LocalDate effectiveDate;  // First date this set of tables applies to
+    private final BracketTable sss;
+    private final BracketTable philHealth;
+    private final BracketTable pagIbig;
+    private final BracketTable withholdingTax;
+
+    private DeductionTables(String version, LocalDate effectiveDate, Map<String, BracketTable> tables) {
+        this.version = version;
+        this.effectiveDate = effectiveDate;
+        this.sss = requireTable(tables, SSS, effectiveDate);
+        this.philHealth = requireTable(tables, PHILHEALTH, effectiveDate);
+        this.pagIbig = requireTable(tables, PAG_IBIG, effectiveDate);
+        this.withholdingTax = requireTable(tables, WITHHOLDING_TAX, effectiveDate);
+    }
+
+    /**
+     * Loads every version of the deduction tables from the table file.
+     * Each row of the file is one bracket: table name, version, effective date, weekly upper limit
+     * (blank for the top bracket), base amount, rate, and the amount the rate applies over.
+     * Brackets of a table must be listed in ascending order of their upper limit.
+     *
+     * @param tableFilePath Path to the deduction table CSV file
+     * @return Sets of deduction tables keyed by the date they take effect
+     * @throws IOException If the file cannot be read or contains an invalid table
+     */
+    static NavigableMap<LocalDate, DeductionTables> load(String tableFilePath) throws IOException {
+        // Effective date -> table name -> rows of brackets, kept in file order
+        TreeMap<LocalDate, Map<String, List<String[]>>> rowsByDate = new TreeMap<>();
+        Map<LocalDate, String> versions = new HashMap<>();
+        try (CSVReader reader = new CSVReader(new FileReader(tableFilePath))) {
+            reader.readNext(); // Skip the header row
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                if (row.length < 7 || row[0].isBlank()) continue;              // Skip blank or short rows
+                LocalDate effectiveDate = LocalDate.parse(row[2].trim(), DATE_FORMATTER);
+                String previousVersion = versions.putIfAbsent(effectiveDate, row[1].trim());
+                if (previousVersion != null && !previousVersion.equals(row[1].trim())) {
+                    throw new IOException("Conflicting versions " + previousVersion + " and " + row[1].trim() + " effective " + effectiveDate);
+                }
+                rowsByDate.computeIfAbsent(effectiveDate, date -> new HashMap<>())
+                        .computeIfAbsent(row[0].trim(), name -> new ArrayList<>())
+                        .add(row);
+            }
+        } catch (com.opencsv.exceptions.CsvValidationException | RuntimeException e) {
+            throw new IOException("Invalid deduction table file " + tableFilePath + ": " + e.getMessage(), e);
+        }
+
+        TreeMap<LocalDate, DeductionTables> tablesByDate = new TreeMap<>();
+        for (Map.Entry<LocalDate, Map<String, List<String[]>>> entry : rowsByDate.entrySet()) {
+            Map<String, BracketTable> tables = new HashMap<>();
+            try {
+                for (Map.Entry<String, List<String[]>> table : entry.getValue().entrySet()) {
+                    tables.put(table.getKey(), BracketTable.fromRows(table.getKey(), table.getValue()));
+                }
+                tablesByDate.put(entry.getKey(), new DeductionTables(versions.get(entry.getKey()), entry.getKey(), tables));
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid deduction table file " + tableFilePath + ": " + e.getMessage(), e);
+            }
+        }
+        if (tablesByDate.isEmpty()) throw new IOException("No deduction tables found in " + tableFilePath);
+        return Collections.unmodifiableNavigableMap(tablesByDate);
+    }
+
+    private static BracketTable requireTable(Map<String, BracketTable> tables, String name, LocalDate effectiveDate) {
+        BracketTable table = tables.get(name);
+        if (table == null) throw new IllegalArgumentException("Missing " + name + " table effective " + effectiveDate);
+        return table;
+    }
+
+    String version() {
+        return version;
+    }
+
+    LocalDate effectiveDate() {
+        return effectiveDate;
+    }
+
+    /**
+     * @param grossSalary Weekly gross salary in centavos
+     * @param rounding How the exact amount is rounded to centavos
+     * @return Weekly SSS contribution in centavos
+     */
+    long sssContribution(long grossSalary, RoundingMode rounding) {
+        return sss.amountFor(grossSalary, rounding);
+    }
+
+    /**
+     * @param grossSalary Weekly gross salary in centavos
+     * @param rounding How the exact amount is rounded to centavos
+     * @return Weekly PhilHealth contribution (employee's share) in centavos
+     */
+    long philHealthContribution(long grossSalary, RoundingMode rounding) {
+        return philHealth.amountFor(grossSalary, rounding);
+    }
+
+    /**
+     * @param grossSalary Weekly gross salary in centavos
+     * @param rounding How the exact amount is rounded to centavos
+     * @return Weekly Pag-IBIG contribution in centavos
+     */
+    long pagIbigContribution(long grossSalary, RoundingMode rounding) {
+        return pagIbig.amountFor(grossSalary, rounding);
+    }
+
+    /**
+     * @param grossSalary Weekly gross salary in centavos
+     * @param rounding How the exact amount is rounded to centavos
+     * @return Weekly withholding tax in centavos
+     */
+    long withholdingTax(long grossSalary, RoundingMode rounding) {
+        return withholdingTax.amountFor(grossSalary, rounding);
+    }
+
+    /**
+     * A single bracketed table. For the first bracket whose upper limit is at or above the
+     * gross salary, the amount is {@code base + (grossSalary - over) * rate}. Amounts are kept
+     * with {@link #AMOUNT_SCALE} decimals and rates with {@link Money#RATE_SCALE} decimals.
+     */
+    static final class BracketTable {
+        private final long[] upperLimits;       // Inclusive weekly upper limit of each bracket (last is Long.MAX_VALUE)
+        private final long[] baseAmounts;       // Fixed amount of each bracket
+        private final long[] rates;             // Rate applied to the salary above the bracket's "over" amount
+        private final long[] rateOver;          // Salary amount the rate applies over
+
+        private BracketTable(long[] upperLimits, long[] baseAmounts, long[] rates, long[] rateOver) {
+            this.upperLimits = upperLimits;
+            this.baseAmounts = baseAmounts;
+            this.rates = rates;
+            this.rateOver = rateOver;
+        }
+
+        private static BracketTable fromRows(String name, List<String[]> rows) {
+            int size = rows.size();
+            long[] upperLimits = new long[size];
+            long[] baseAmounts = new long[size];
+            long[] rates = new long[size];
+            long[] rateOver = new long[size];
+            for (int i = 0; i < size; i++) {
+                String[] row = rows.get(i);
+                upperLimits[i] = row[3].isBlank() ? Long.MAX_VALUE : amount(row[3]);
+                baseAmounts[i] = amount(row[4]);
+                rates[i] = Money.parse(row[5], Money.RATE_SCALE, RoundingMode.UNNECESSARY);
+                rateOver[i] = amount(row[6]);
+                if (i > 0 && upperLimits[i] <= upperLimits[i - 1]) {
+                    throw new IllegalArgumentException(name + " brackets are not in ascending order at row " + (i + 1));
+                }
+            }
+            if (upperLimits[size - 1] != Long.MAX_VALUE) {
+                throw new IllegalArgumentException(name + " table has no top bracket (blank upper limit)");
+            }
+            return new BracketTable(upperLimits, baseAmounts, rates, rateOver);
+        }
+
+        /**
+         * @throws NumberFormatException If the amount is not a number or has more than {@link #AMOUNT_SCALE} decimals
+         */
+        private static long amount(String value) {
+            return Money.parse(value, AMOUNT_SCALE, RoundingMode.UNNECESSARY);
+        }
+
+        /**
+         * Finds the bracket of the gross salary by binary search and computes its amount.
+         *
+         * @param grossSalary Weekly gross salary in centavos
+         * @param rounding How the exact amount is rounded to centavos
+         * @return Amount for the bracket the salary falls into, in centavos
+         */
+        long amountFor(long grossSalary, RoundingMode rounding) {
+            long gross = Math.multiplyExact(grossSalary, UNITS_PER_CENTAVO);      // Gross salary in table units
+            int low = 0;
+            int high = upperLimits.length - 1;      // The top bracket always matches
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (gross <= upperLimits[mid]) high = mid;
+                else low = mid + 1;
+            }
+            // base + (gross - over) * rate, in table units times RATE_UNIT, then rounded once to centavos
+            long exact = Math.addExact(Math.multiplyExact(baseAmounts[low], Money.RATE_UNIT),
+                    Math.multiplyExact(gross - rateOver[low], rates[low]));
+            return Money.divide(exact, UNITS_PER_CENTAVO * Money.RATE_UNIT, rounding);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * This record holds the details of one employee needed for payroll, with the salary
+ * figures already parsed from the employee data file.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+/**
+ * @param employeeNumber Employee number
+ * @param lastName Employee's last name
+ * @param firstName Employee's first name
+ * @param birthday Employee's birthday as written in the employee data file
+ * @param position Employee's position
+ * @param supervisorName Name of the immediate supervisor as written in the employee data file ("N/A" if none)
+ * @param supervisorNumber Employee number of the immediate supervisor, or -1 if none or unknown
+ * @param hourlyRate Hourly pay rate in centavos
+ * @param riceSubsidy Monthly rice subsidy in centavos
+ * @param phoneAllowance Monthly phone allowance in centavos
+ * @param clothingAllowance Monthly clothing allowance in centavos
+ */
+record Employee(int employeeNumber, String lastName, String firstName, String birthday, String position,
+                String supervisorName, int supervisorNumber, long hourlyRate, long riceSubsidy,
+                long phoneAllowance, long clothingAllowance) {
+
+    /**
+     * @return Full name in "Last Name, First Name" form
+     */
+    String fullName() {
+        return lastName + ", " + firstName;
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * This class holds the employee master data of the MotorPH payroll system.
+ * The employee data file is read once into an immutable index sorted by employee number,
+ * so looking up an employee (or a supervisor's direct reports) is a binary search instead of a file scan.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import com.opencsv.CSVReader;                           // Library for reading CSV files
+import java.io.*;                                       // For file input/output operations
+import java.util.*;                                     // For collections like ArrayList and HashMap
+
+final class EmployeeRepository {
+
+    private final int[] employeeNumbers;        // Employee numbers in ascending order
+    private final Employee[] employees;         // Employee with the employee number at the same index
+    private final int[] supervisorNumbers;      // Supervisor employee numbers in ascending order
+    private final int[] reportOffsets;          // Index in reports where each supervisor's direct reports start; last entry is reports.length
+    private final Employee[] reports;           // Employees grouped by supervisor, in employee number order within a group
+
+    private EmployeeRepository(Employee[] employees) {
+        this.employees = employees;
+        this.employeeNumbers = new int[employees.length];
+        for (int i = 0; i < employees.length; i++) employeeNumbers[i] = employees[i].employeeNumber();
+
+        reports = Arrays.stream(employees).filter(employee -> employee.supervisorNumber() >= 0)
+                .sorted(Comparator.comparingInt(Employee::supervisorNumber).thenComparingInt(Employee::employeeNumber))
+                .toArray(Employee[]::new);
+        int[] supervisors = new int[reports.length];
+        int[] offsets = new int[reports.length + 1];
+        int count = 0;
+        for (int i = 0; i < reports.length; i++) {
+            if (count == 0 || supervisors[count - 1] != reports[i].supervisorNumber()) {
+                supervisors[count] = reports[i].supervisorNumber();
+                offsets[count++] = i;
+            }
+        }
+        offsets[count] = reports.length;
+        supervisorNumbers = Arrays.copyOf(supervisors, count);
+        reportOffsets = Arrays.copyOf(offsets, count + 1);
+    }
+
+    /**
+     * Loads the employee data file. Rows with missing columns are skipped, and only the first
+     * row of a duplicated employee number is kept.
+     *
+     * @param employeeFilePath Path to the employee data CSV file
+     * @return The loaded employees
+     * @throws IOException If the file cannot be read or a row has an invalid employee number or amount
+     */
+    static EmployeeRepository load(String employeeFilePath) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (CSVReader reader = new CSVReader(new FileReader(employeeFilePath))) {
+            reader.readNext(); // Skip the header row
+            String[] employeeData;      // Array to hold each row of employee data
+            while ((employeeData = reader.readNext()) != null) {                            // Read each row until end of file
+                if (employeeData.length >= 19) rows.add(employeeData);                      // Ensure row has enough columns
+            }
+        } catch (com.opencsv.exceptions.CsvValidationException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        // Resolve supervisor names to employee numbers
+        Map<String, Integer> numbersByName = new HashMap<>();
+        for (String[] employeeData : rows) {
+            numbersByName.putIfAbsent(nameKey(employeeData[1] + employeeData[2]), parseEmployeeNumber(employeeData[0]));
+        }
+
+        Map<Integer, Employee> employeesByNumber = new TreeMap<>();
+        for (String[] employeeData : rows) {
+            int employeeNumber = parseEmployeeNumber(employeeData[0]);
+            String supervisorName = employeeData[12].trim();
+            Employee employee = new Employee(employeeNumber, employeeData[1].trim(), employeeData[2].trim(),
+                    employeeData[3].trim(), employeeData[11].trim(), supervisorName,
+                    numbersByName.getOrDefault(nameKey(supervisorName), -1),
+                    parseAmount(employeeData[18]), parseAmount(employeeData[14]),
+                    parseAmount(employeeData[15]), parseAmount(employeeData[16]));
+            if (employeesByNumber.putIfAbsent(employeeNumber, employee) != null) {
+                System.err.println("Warning: duplicate employee number " + employeeNumber + " ignored.");
+            }
+        }
+        return new EmployeeRepository(employeesByNumber.values().toArray(Employee[]::new));
+    }
+
+    /**
+     * @param employeeNumber Employee number
+     * @return The employee, or null if there is no employee with that number
+     */
+    Employee findById(int employeeNumber) {
+        int index = Arrays.binarySearch(employeeNumbers, employeeNumber);
+        return index < 0 ? null : employees[index];
+    }
+
+    /**
+     * @param supervisorNumber Employee number of the supervisor
+     * @return The supervisor's direct reports in employee number order (empty if none)
+     */
+    List<Employee> findBySupervisor(int supervisorNumber) {
+        int index = Arrays.binarySearch(supervisorNumbers, supervisorNumber);
+        if (index < 0) return List.of();
+        return Collections.unmodifiableList(Arrays.asList(reports).subList(reportOffsets[index], reportOffsets[index + 1]));
+    }
+
+    /**
+     * @return All employees in employee number order
+     */
+    List<Employee> all() {
+        return Collections.unmodifiableList(Arrays.asList(employees));
+    }
+
+    int size() {
+        return employees.length;
+    }
+
+    private static int parseEmployeeNumber(String value) throws IOException {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid employee number: " + value.trim());
+        }
+    }
+
+    /**
+     * Parses an amount such as {@code "90,000"} or {@code 535.71} into centavos, ignoring quotes and thousands separators.
+     */
+    private static long parseAmount(String value) throws IOException {
+        try {
+            return Money.parse(value);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid amount: " + value.trim());
+        }
+    }
+
+    /**
+     * @return The letters of a name in lower case, so "San, Jose Brad" and "San Jose" + "Brad" match
+     */
+    private static String nameKey(String name) {
+        StringBuilder key = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetter(c)) key.append(Character.toLowerCase(c));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,338 @@
+/**
+ * This class sorts attendance records by employee within a fixed memory budget, for attendance
+ * histories larger than the heap. Records are collected in a run buffer of primitive arrays; when the
+ * buffer is full it is sorted by employee and spilled to a temporary run file. The runs are then
+ * merged k ways (in several passes if there are too many runs to merge at once) and the records are
+ * returned one at a time, grouped by employee in ascending employee number order and in the order
+ * they were added within an employee. If everything fits in one run nothing is written to disk.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For file input/output operations
+import java.nio.*;                                      // For reading and writing run records
+import java.nio.channels.FileChannel;                   // For run files
+import java.nio.file.*;                                 // For the spill directory
+import java.util.*;                                     // For collections like ArrayList and PriorityQueue
+
+final class ExternalAttendanceSort implements AttendanceParser.RecordHandler, Closeable {
+
+    private static final long MIN_MEMORY_BUDGET = 1L << 20;        // Smallest budget accepted (1 MB)
+    private static final int IN_MEMORY_RECORD_BYTES = 16;           // Sort key plus packed date and times
+    private static final int SPILLED_RECORD_BYTES = 12;             // Employee number plus packed date and times
+    private static final int INITIAL_RUN_CAPACITY = 1 << 16;        // Records the run buffer starts with
+    private static final int MERGE_FAN_IN = 64;                     // Most runs merged in one pass
+    private static final int MIN_IO_BUFFER_SIZE = 8 << 10;          // Smallest read or write buffer of a run file (8 KB)
+    private static final int MAX_IO_BUFFER_SIZE = 1 << 20;          // Largest read or write buffer of a run file (1 MB)
+
+    private final Path spillRoot;           // Directory the spill directory is created in
+    private final int runCapacity;          // Most records held in memory before a run is spilled
+    private final int ioBufferSize;         // Buffer size of each run file being written or merged
+    private long[] keys;                    // Employee number in the high 32 bits, index into packed in the low 32 bits
+    private long[] packed;                  // Epoch day in the high 32 bits, log in and log out minutes in the low 32 bits
+    private int size;                       // Records in the run buffer
+    private Path spillDirectory;            // Created on the first spill
+    private final List<Path> runs = new ArrayList<>();          // Spilled runs, in the order their records were added
+    private int spilledRunCount;            // Runs spilled from the run buffer, not counting merge passes
+    private long spilledBytes;              // Bytes written to run files, including merge passes
+
+    /**
+     * @param memoryBudget Heap the sort may use for its buffers, in bytes; half goes to the run buffer
+     *                     (which needs room for one and a half copies while it grows) and a quarter to merge buffers
+     * @param spillRoot Directory temporary run files are written under
+     * @throws IllegalArgumentException If the budget is below 1 MB
+     */
+    ExternalAttendanceSort(long memoryBudget, Path spillRoot) {
+        if (memoryBudget < MIN_MEMORY_BUDGET) throw new IllegalArgumentException("Memory budget must be at least 1m: " + memoryBudget);
+        this.spillRoot = spillRoot;
+        this.runCapacity = (int) Math.min(Integer.MAX_VALUE - 8, memoryBudget / 2 / (IN_MEMORY_RECORD_BYTES * 3 / 2));
+        this.ioBufferSize = (int) Math.max(MIN_IO_BUFFER_SIZE, Math.min(MAX_IO_BUFFER_SIZE, memoryBudget / 4 / (MERGE_FAN_IN + 1)));
+        this.keys = new long[Math.min(INITIAL_RUN_CAPACITY, runCapacity)];
+        this.packed = new long[keys.length];
+    }
+
+    /**
+     * Parses a memory size such as {@code 512m}, {@code 4g} or {@code 65536} (bytes), as for {@code -Xmx}.
+     *
+     * @param size Size with an optional k, m, g or t suffix
+     * @return The size in bytes
+     * @throws NumberFormatException If the size is not a valid size
+     */
+    static long parseSize(String size) {
+        String value = size.trim().toLowerCase(Locale.ROOT);
+        int shift = switch (value.isEmpty() ? ' ' : value.charAt(value.length() - 1)) {
+            case 'k' -> 10;
+            case 'm' -> 20;
+            case 'g' -> 30;
+            case 't' -> 40;
+            default -> 0;
+        };
+        long number = Long.parseLong(shift == 0 ? value : value.substring(0, value.length() - 1));
+        if (number < 0 || number > Long.MAX_VALUE >> shift) throw new NumberFormatException("Size out of range: " + size);
+        return number << shift;
+    }
+
+    /**
+     * Adds a record, spilling the run buffer to a run file first if it is full.
+     *
+     * @throws UncheckedIOException If a run cannot be written
+     */
+    @Override
+    public void onRecord(int employeeId, int epochDay, int logInMinute, int logOutMinute) {
+        if (size == keys.length) {
+            if (size < runCapacity) {           // Grow the run buffer up to the run capacity
+                int capacity = (int) Math.min(runCapacity, 2L * size);
+                keys = Arrays.copyOf(keys, capacity);
+                packed = Arrays.copyOf(packed, capacity);
+            } else {
+                try {
+                    spill();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        keys[size] = ((long) employeeId << 32) | size;
+        packed[size] = ((long) epochDay << 32) | ((long) (logInMinute & 0xFFFF) << 16) | (logOutMinute & 0xFFFF);
+        size++;
+    }
+
+    /**
+     * @return Runs spilled from the run buffer, not counting runs written by merge passes
+     */
+    int runCount() {
+        return spilledRunCount;
+    }
+
+    long spilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Finishes adding records and starts returning them in sorted order. The sort must not be
+     * added to afterwards.
+     *
+     * @return Cursor over the sorted records; close it (or the sort) when done
+     * @throws IOException If a run cannot be written or read
+     */
+    Cursor sorted() throws IOException {
+        if (runs.isEmpty()) {               // Everything fit in memory
+            Arrays.sort(keys, 0, size);
+            return new MemoryCursor();
+        }
+        if (size > 0) spill();
+        keys = packed = null;               // Free the run buffer for the merge
+        while (runs.size() > MERGE_FAN_IN) {
+            // Merge the oldest runs into one, keeping runs in the order their records were added
+            List<Path> oldest = new ArrayList<>(runs.subList(0, MERGE_FAN_IN));
+            Path merged = newRunFile();
+            try (MergeCursor cursor = new MergeCursor(oldest); RunWriter writer = new RunWriter(merged)) {
+                while (cursor.next()) writer.write(cursor.employeeId(), cursor.packed());
+            }
+            for (Path run : oldest) Files.delete(run);
+            runs.subList(0, MERGE_FAN_IN).clear();
+            runs.add(0, merged);
+        }
+        return new MergeCursor(runs);
+    }
+
+    /**
+     * Deletes the run files and the spill directory.
+     */
+    @Override
+    public void close() throws IOException {
+        if (spillDirectory == null) return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDirectory)) {
+            for (Path file : files) Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(spillDirectory);
+        spillDirectory = null;
+    }
+
+    /**
+     * Sorts the run buffer by employee and writes it to a new run file.
+     */
+    private void spill() throws IOException {
+        Arrays.sort(keys, 0, size);         // Keys are unique, so records of an employee stay in the order they were added
+        Path run = newRunFile();
+        try (RunWriter writer = new RunWriter(run)) {
+            for (int i = 0; i < size; i++) writer.write((int) (keys[i] >> 32), packed[(int) keys[i]]);
+        }
+        runs.add(run);
+        spilledRunCount++;
+        size = 0;
+    }
+
+    private Path newRunFile() throws IOException {
+        if (spillDirectory == null) spillDirectory = Files.createTempDirectory(spillRoot, "motorph-sort");
+        return Files.createTempFile(spillDirectory, "run", ".bin");
+    }
+
+    /**
+     * Returns sorted records one at a time. Call {@link #next()} before reading the first record.
+     */
+    abstract static class Cursor implements Closeable {
+        /**
+         * Moves to the next record.
+         *
+         * @return False if there are no more records
+         * @throws IOException If a run file cannot be read
+         */
+        abstract boolean next() throws IOException;
+
+        abstract int employeeId();
+
+        /**
+         * @return Epoch day in the high 32 bits, log in and log out minutes in the low 32 bits
+         */
+        abstract long packed();
+
+        int epochDay() {
+            return (int) (packed() >> 32);
+        }
+
+        int logInMinute() {
+            return (int) (packed() >>> 16) & 0xFFFF;
+        }
+
+        int logOutMinute() {
+            return (int) packed() & 0xFFFF;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    /**
+     * Cursor over a run buffer that never had to be spilled.
+     */
+    private final class MemoryCursor extends Cursor {
+        private int index = -1;
+
+        @Override
+        boolean next() {
+            return ++index < size;
+        }
+
+        @Override
+        int employeeId() {
+            return (int) (keys[index] >> 32);
+        }
+
+        @Override
+        long packed() {
+            return packed[(int) keys[index]];
+        }
+    }
+
+    /**
+     * Cursor that merges run files on a heap ordered by employee number, then run order.
+     */
+    private final class MergeCursor extends Cursor {
+        private final List<RunReader> readers = new ArrayList<>();
+        private final PriorityQueue<RunReader> heap = new PriorityQueue<>(
+                Comparator.comparingInt((RunReader reader) -> reader.employeeId).thenComparingInt(reader -> reader.order));
+        private RunReader current;          // Reader holding the current record
+
+        MergeCursor(List<Path> runFiles) throws IOException {
+            try {
+                for (Path run : runFiles) readers.add(new RunReader(run, readers.size()));
+                for (RunReader reader : readers) {
+                    if (reader.advance()) heap.add(reader);
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        boolean next() throws IOException {
+            if (current != null && current.advance()) heap.add(current);
+            current = heap.poll();
+            return current != null;
+        }
+
+        @Override
+        int employeeId() {
+            return current.employeeId;
+        }
+
+        @Override
+        long packed() {
+            return current.packed;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (RunReader reader : readers) reader.channel.close();
+        }
+    }
+
+    /**
+     * Reads the records of one run file through a fixed-size buffer.
+     */
+    private final class RunReader {
+        final FileChannel channel;
+        final int order;                    // Position of the run among the runs being merged
+        final ByteBuffer buffer = ByteBuffer.allocate(ioBufferSize - ioBufferSize % SPILLED_RECORD_BYTES).flip();
+        int employeeId;
+        long packed;
+
+        RunReader(Path run, int order) throws IOException {
+            this.channel = FileChannel.open(run, StandardOpenOption.READ);
+            this.order = order;
+        }
+
+        /**
+         * @return False if the run has no more records
+         */
+        boolean advance() throws IOException {
+            if (buffer.remaining() < SPILLED_RECORD_BYTES) {
+                buffer.compact();
+                while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                    // Fill the buffer, or read up to the end of the run
+                }
+                buffer.flip();
+                if (buffer.remaining() < SPILLED_RECORD_BYTES) return false;
+            }
+            employeeId = buffer.getInt();
+            packed = buffer.getLong();
+            return true;
+        }
+    }
+
+    /**
+     * Writes records to a run file through a fixed-size buffer.
+     */
+    private final class RunWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(ioBufferSize - ioBufferSize % SPILLED_RECORD_BYTES);
+
+        RunWriter(Path run) throws IOException {
+            this.channel = FileChannel.open(run, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void write(int employeeId, long packed) throws IOException {
+            if (buffer.remaining() < SPILLED_RECORD_BYTES) drain();
+            buffer.putInt(employeeId).putLong(packed);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) spilledBytes += channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
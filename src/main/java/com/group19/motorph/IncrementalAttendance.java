@@ -0,0 +1,251 @@
+/**
+ * This class folds newly appended attendance rows into saved weekly totals.
+ * The attendance file is append-only during a pay period, so a state file next to it remembers
+ * how far the file has been processed and each employee's weekly regular and overtime minutes.
+ * Each update parses only the rows appended since the last update and reports which
+ * (employee, week) totals changed, so only those payslips need to be recomputed. The state also
+ * records a fingerprint of the attendance rules, so saved totals are recomputed once the work
+ * schedules change. Only rows dated within the pay period are added, and each pay period keeps
+ * its own state file, so the saved totals are always those of the period they are reused for.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For file input/output operations
+import java.nio.ByteBuffer;                             // For reading the processed tail of the file
+import java.nio.channels.FileChannel;                   // For mapping the appended rows
+import java.nio.file.*;                                 // For file paths
+import java.time.*;                                     // For week start dates and durations
+import java.util.*;                                     // For collections like HashMap and TreeMap
+import java.util.function.Function;                     // For applying the attendance rules to parsed rows
+import java.util.zip.CRC32;                             // For detecting rewritten attendance files
+
+final class IncrementalAttendance {
+
+    private static final String STATE_SUFFIX = ".state";       // State file name is the CSV file name plus this suffix
+    private static final int MAGIC = 0x4D504849;                // "MPHI" marks a MotorPH incremental state file
+    private static final int FORMAT_VERSION = 3;                // Bumped whenever the file layout changes
+    private static final int CHECKSUM_WINDOW = 4096;            // Bytes before the processed offset covered by the checksum
+
+    private IncrementalAttendance() {
+    }
+
+    /**
+     * Outcome of one incremental update.
+     *
+     * @param totals Weekly totals of all rows processed so far
+     * @param changed Weekly totals of the rows processed by this update only; its keys are the changed weeks
+     * @param newRecords Number of rows processed by this update
+     * @param skippedRows Number of rows skipped by this update because the log in or log out time is missing
+     * @param malformedRows Number of rows this update could not parse
+     * @param fullRecompute True if the saved state could not be used and the whole file was processed
+     */
+    record Update(WeeklyAttendance totals, WeeklyAttendance changed, long newRecords, long skippedRows, long malformedRows,
+                  boolean fullRecompute) {
+
+        /**
+         * @return Map of employee ID to the full weekly records of the weeks changed by this update
+         */
+        Map<String, TreeMap<LocalDate, Duration[]>> changedWeeklyRecords() {
+            Map<String, TreeMap<LocalDate, Duration[]>> weeklyRecords = new HashMap<>();
+            changed.forEach((employeeId, weekStartEpochDay, work, overtime) -> weeklyRecords
+                    .computeIfAbsent(Integer.toString(employeeId), id -> new TreeMap<>())
+                    .put(LocalDate.ofEpochDay(weekStartEpochDay), new Duration[]{
+                            Duration.ofMinutes(totals.workMinutes(employeeId, weekStartEpochDay)),
+                            Duration.ofMinutes(totals.overtimeMinutes(employeeId, weekStartEpochDay))}));
+            return weeklyRecords;
+        }
+    }
+
+    /**
+     * Processes the rows appended to an attendance file since the last update and saves the new state.
+     * If there is no usable state (first run, or the file was truncated or rewritten) the whole file
+     * is processed. A last row without a trailing newline is only taken once it parses as a complete
+     * record, so a row that is still being written is picked up by a later update. The whole file is
+     * also processed if the state was saved under attendance rules with a different fingerprint.
+     *
+     * @param attendanceFilePath Path to the attendance records CSV file
+     * @param payPeriod Attendance dates whose rows are added to the totals
+     * @param rulesFingerprint Fingerprint of the attendance rules the handler applies
+     * @param handlerFor Returns the handler that applies the attendance rules to a parsed row and adds it to the given totals
+     * @param malformedRowHandler Handler for malformed rows (may be null)
+     * @return The outcome of the update
+     * @throws IOException If the attendance file cannot be read
+     */
+    static Update update(String attendanceFilePath, PayPeriod payPeriod, long rulesFingerprint,
+                         Function<WeeklyAttendance, AttendanceParser.RecordHandler> handlerFor,
+                         AttendanceParser.MalformedRowHandler malformedRowHandler) throws IOException {
+        Path state = statePath(attendanceFilePath, payPeriod);
+        try (FileChannel channel = FileChannel.open(Path.of(attendanceFilePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long offset = -1;
+            WeeklyAttendance totals = null;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(state)))) {
+                if (in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION && in.readLong() == rulesFingerprint
+                        && in.readLong() == periodBound(payPeriod.start(), Long.MIN_VALUE)
+                        && in.readLong() == periodBound(payPeriod.end(), Long.MAX_VALUE)) {
+                    long savedOffset = in.readLong();
+                    long savedChecksum = in.readLong();
+                    if (savedOffset <= size && checksum(channel, savedOffset) == savedChecksum) {
+                        totals = readTotals(in);
+                        offset = savedOffset;
+                    }
+                }
+            } catch (NoSuchFileException | EOFException e) {
+                // No usable state yet; process the whole file
+            }
+            boolean fullRecompute = totals == null;
+            if (fullRecompute) {
+                totals = new WeeklyAttendance();
+                offset = MappedAttendanceReader.nextRowStart(channel, 0);     // Skip the header row
+            }
+
+            WeeklyAttendance changed = new WeeklyAttendance();
+            long end = lastNewlineEnd(channel, offset, size);
+            AttendanceParser parser = new AttendanceParser(payPeriod.filter(handlerFor.apply(changed)), malformedRowHandler);
+            MappedAttendanceReader.parseRange(channel, offset, end, parser);      // In windows, as the region may exceed 2 GB
+            long newRecords = parser.recordCount();
+
+            if (end < size) {           // Last row has no newline yet: take it only if it is complete
+                WeeklyAttendance lastRow = new WeeklyAttendance(1);
+                AttendanceParser lastRowParser = new AttendanceParser(payPeriod.filter(handlerFor.apply(lastRow)), null);
+                MappedAttendanceReader.parseRange(channel, end, size, lastRowParser);
+                if (lastRowParser.recordCount() == 1) {
+                    changed.merge(lastRow);
+                    newRecords++;
+                    end = size;
+                }
+            }
+
+            totals.merge(changed);
+            writeState(state, payPeriod, rulesFingerprint, channel, end, totals);
+            return new Update(totals, changed, newRecords, parser.skippedCount(), parser.malformedCount(), fullRecompute);
+        }
+    }
+
+    /**
+     * Processes the rows appended to each of several attendance files since their last update, as
+     * {@link #update(String, PayPeriod, long, Function, AttendanceParser.MalformedRowHandler)} does for one file,
+     * and combines the outcomes. Each file keeps its own saved state, so a week spread over several files
+     * gets its totals from all of them.
+     *
+     * @param attendanceFiles Paths of the attendance CSV files
+     * @param payPeriod Attendance dates whose rows are added to the totals
+     * @param rulesFingerprint Fingerprint of the attendance rules the handler applies
+     * @param handlerFor Returns the handler that applies the attendance rules to a parsed row and adds it to the given totals
+     * @param malformedRowHandler Handler for malformed rows (may be null)
+     * @return The combined outcome of the updates
+     * @throws IOException If an attendance file cannot be read
+     */
+    static Update update(List<Path> attendanceFiles, PayPeriod payPeriod, long rulesFingerprint,
+                         Function<WeeklyAttendance, AttendanceParser.RecordHandler> handlerFor,
+                         AttendanceParser.MalformedRowHandler malformedRowHandler) throws IOException {
+        if (attendanceFiles.size() == 1) {
+            return update(attendanceFiles.get(0).toString(), payPeriod, rulesFingerprint, handlerFor, malformedRowHandler);
+        }
+        WeeklyAttendance totals = new WeeklyAttendance();
+        WeeklyAttendance changed = new WeeklyAttendance();
+        long newRecords = 0, skippedRows = 0, malformedRows = 0;
+        boolean fullRecompute = false;
+        for (Path attendanceFile : attendanceFiles) {
+            Update update = update(attendanceFile.toString(), payPeriod, rulesFingerprint, handlerFor, malformedRowHandler);
+            totals.merge(update.totals());
+            changed.merge(update.changed());
+            newRecords += update.newRecords();
+            skippedRows += update.skippedRows();
+            malformedRows += update.malformedRows();
+            fullRecompute |= update.fullRecompute();
+        }
+        return new Update(totals, changed, newRecords, skippedRows, malformedRows, fullRecompute);
+    }
+
+    /**
+     * @return The state file of an attendance file for a pay period, e.g. {@code attendance.csv.2024-06-01_2024-06-15.state}
+     */
+    static Path statePath(String attendanceFilePath, PayPeriod payPeriod) {
+        if (payPeriod.isAll()) return Path.of(attendanceFilePath + STATE_SUFFIX);
+        return Path.of(attendanceFilePath + '.' + (payPeriod.start() == null ? "" : payPeriod.start())
+                + '_' + (payPeriod.end() == null ? "" : payPeriod.end()) + STATE_SUFFIX);
+    }
+
+    /**
+     * @return The epoch day of a pay period bound, or {@code open} if the period is not bounded on that side
+     */
+    private static long periodBound(LocalDate bound, long open) {
+        return bound == null ? open : bound.toEpochDay();
+    }
+
+    private static WeeklyAttendance readTotals(DataInputStream in) throws IOException {
+        int weeks = in.readInt();
+        WeeklyAttendance totals = new WeeklyAttendance(weeks);
+        for (int i = 0; i < weeks; i++) totals.add(in.readInt(), in.readInt(), in.readLong(), in.readLong());
+        return totals;
+    }
+
+    /**
+     * Writes the state under a temporary name and moves it into place so a partly written state is never read.
+     */
+    private static void writeState(Path state, PayPeriod payPeriod, long rulesFingerprint, FileChannel channel, long offset,
+                                   WeeklyAttendance totals) throws IOException {
+        Path temporary = state.resolveSibling(state.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(rulesFingerprint);
+            out.writeLong(periodBound(payPeriod.start(), Long.MIN_VALUE));
+            out.writeLong(periodBound(payPeriod.end(), Long.MAX_VALUE));
+            out.writeLong(offset);
+            out.writeLong(checksum(channel, offset));
+            out.writeInt(totals.size());
+            IOException[] failure = new IOException[1];
+            totals.forEach((employeeId, weekStartEpochDay, work, overtime) -> {
+                if (failure[0] != null) return;
+                try {
+                    out.writeInt(employeeId);
+                    out.writeInt(weekStartEpochDay);
+                    out.writeLong(work);
+                    out.writeLong(overtime);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) throw failure[0];
+        }
+        Files.move(temporary, state, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return CRC32 of the bytes just before {@code offset}, used to check that the processed part of the file is unchanged
+     */
+    private static long checksum(FileChannel channel, long offset) throws IOException {
+        int length = (int) Math.min(CHECKSUM_WINDOW, offset);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset - length + buffer.position()) < 0) break;
+        }
+        buffer.flip();
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    /**
+     * @return Position just after the last newline in {@code [from, to)}, or {@code from} if there is none
+     */
+    private static long lastNewlineEnd(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        for (long end = to; end > from; ) {
+            long start = Math.max(from, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) break;
+            }
+            for (int i = (int) (end - start) - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') return start + i + 1;
+            }
+            end = start;
+        }
+        return from;
+    }
+}
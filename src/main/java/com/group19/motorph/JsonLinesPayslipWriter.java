@@ -0,0 +1,71 @@
+/**
+ * This class writes payslips as JSON Lines: one JSON object per employee-week per line, with the
+ * same field names as the payslips returned by the payroll service.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For file input/output operations
+import java.util.*;                                     // For collections like List
+
+final class JsonLinesPayslipWriter extends BufferedPayslipWriter {
+
+    /**
+     * @param out Stream the JSON lines are written to
+     */
+    JsonLinesPayslipWriter(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(Employee employee, List<Payslip> payslips) throws IOException {
+        for (Payslip payslip : payslips) {
+            buffer.append("{\"employeeNumber\":").append(payslip.employeeNumber()).append(",\"name\":");
+            appendString(payslip.fullName());
+            buffer.append(",\"weekStart\":\"");
+            appendDate(payslip.startOfWeek()).append("\",\"weekEnd\":\"");
+            appendDate(payslip.endOfWeek()).append("\",\"workMinutes\":").append(payslip.workMinutes())
+                    .append(",\"overtimeMinutes\":").append(payslip.overtimeMinutes());
+            amount("baseSalary", payslip.baseSalary());
+            amount("overtimePay", payslip.overtimePay());
+            amount("grossSalary", payslip.grossSalary());
+            amount("sssContribution", payslip.sssContribution());
+            amount("philHealthContribution", payslip.philHealthContribution());
+            amount("pagIbigContribution", payslip.pagIbigContribution());
+            amount("totalDeductions", payslip.totalDeductions());
+            amount("withholdingTax", payslip.withholdingTax());
+            amount("allowances", payslip.totalAllowances());
+            amount("netSalary", payslip.finalPay());
+            buffer.append("}\n");
+        }
+        flushIfFull();
+    }
+
+    private void amount(String name, long value) {
+        buffer.append(",\"").append(name).append("\":");
+        appendAmount(value);
+    }
+
+    /**
+     * Appends a JSON string literal, escaping quotes, backslashes and control characters.
+     */
+    private void appendString(String value) {
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> buffer.append("\\\"");
+                case '\\' -> buffer.append("\\\\");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                case '\t' -> buffer.append("\\t");
+                default -> {
+                    if (c < 0x20) buffer.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    else buffer.append(c);
+                }
+            }
+        }
+        buffer.append('"');
+    }
+}
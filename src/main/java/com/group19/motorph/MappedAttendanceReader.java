@@ -0,0 +1,132 @@
+/**
+ * This class reads an attendance CSV file through memory-mapped NIO buffers.
+ * The file is split into newline-aligned chunks that are mapped read-only and parsed in
+ * parallel by {@link AttendanceParser}, each into its own accumulator, and the accumulators are
+ * then merged in file order. Data is served from the OS page cache without copying or charset decoding.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For file input/output exceptions
+import java.nio.ByteBuffer;                             // For reading chunk boundaries
+import java.nio.channels.FileChannel;                   // For mapping the attendance file
+import java.nio.file.*;                                 // For opening the attendance file
+import java.util.*;                                     // For collections like ArrayList
+import java.util.concurrent.ExecutionException;         // For failures raised by chunk tasks
+import java.util.concurrent.ForkJoinPool;               // For parsing chunks on multiple cores
+import java.util.function.*;                            // For creating and merging chunk accumulators
+
+final class MappedAttendanceReader {
+
+    private static final long MIN_CHUNK_SIZE = 1L << 20;    // Smallest chunk worth giving its own task (1 MB)
+    private static final long MAX_CHUNK_SIZE = 1L << 30;    // Largest chunk mapped at once (a mapping must stay below 2 GB)
+
+    private MappedAttendanceReader() {
+    }
+
+    /**
+     * Reads an attendance file, processing its chunks in parallel on a worker pool.
+     *
+     * @param attendanceFilePath Path to the attendance records CSV file
+     * @param workerPool Pool the chunks are parsed on
+     * @param newAccumulator Creates the accumulator of one chunk
+     * @param handlerFor Returns the handler that adds parsed rows to an accumulator
+     * @param merger Merges the accumulator of a later chunk into the accumulator of an earlier chunk
+     * @param malformedRowHandler Handler for malformed rows (may be null to only count them)
+     * @param <T> Type of the accumulator
+     * @return The merged accumulator of all chunks
+     * @throws IOException If the file cannot be read
+     */
+    static <T> T read(String attendanceFilePath, ForkJoinPool workerPool, Supplier<T> newAccumulator,
+                      Function<T, AttendanceParser.RecordHandler> handlerFor, BinaryOperator<T> merger,
+                      AttendanceParser.MalformedRowHandler malformedRowHandler) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(attendanceFilePath), StandardOpenOption.READ)) {
+            List<long[]> chunks = splitIntoChunks(channel, workerPool.getParallelism());
+            try {
+                return workerPool.submit(() -> chunks.parallelStream()
+                        .map(chunk -> readChunk(channel, chunk[0], chunk[1], newAccumulator.get(), handlerFor, malformedRowHandler))
+                        .reduce(merger)
+                        .orElseGet(newAccumulator)).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading " + attendanceFilePath);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException unchecked) throw unchecked.getCause();
+                throw new IOException("Error reading " + attendanceFilePath + ": " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Splits the file after its header row into chunks that each end just after a newline
+     * (or at the end of the file).
+     *
+     * @param channel Channel of the attendance file
+     * @param parallelism Number of workers the chunks are shared between
+     * @return List of [start, end) byte ranges
+     */
+    static List<long[]> splitIntoChunks(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        long start = nextRowStart(channel, 0);      // Skip the header row
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, (size - start + parallelism - 1) / Math.max(parallelism, 1)));
+        List<long[]> chunks = new ArrayList<>();
+        while (start < size) {
+            long end = start + chunkSize >= size ? size : nextRowStart(channel, start + chunkSize);
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * @return Position just after the first newline at or after {@code position}, or the file size if there is none
+     */
+    static long nextRowStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long size = channel.size();
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Parses the rows in a byte range of an attendance file through read-only mappings of at most
+     * {@link #MAX_CHUNK_SIZE} bytes each, split just after a newline, so a range of any size can be parsed.
+     *
+     * @param channel Channel of the attendance file
+     * @param start Offset of the first row of the range
+     * @param end Offset just past the last row of the range
+     * @param parser Parser the rows are passed to
+     * @throws IOException If the file cannot be mapped
+     */
+    static void parseRange(FileChannel channel, long start, long end, AttendanceParser parser) throws IOException {
+        while (start < end) {
+            long windowEnd = end - start <= MAX_CHUNK_SIZE ? end : Math.min(end, nextRowStart(channel, start + MAX_CHUNK_SIZE - 1));
+            if (windowEnd - start > Integer.MAX_VALUE) {
+                throw new IOException("Attendance row at byte " + start + " is too long to map");
+            }
+            parser.parse(channel.map(FileChannel.MapMode.READ_ONLY, start, windowEnd - start), start);
+            start = windowEnd;
+        }
+    }
+
+    private static <T> T readChunk(FileChannel channel, long start, long end, T accumulator,
+                                   Function<T, AttendanceParser.RecordHandler> handlerFor,
+                                   AttendanceParser.MalformedRowHandler malformedRowHandler) {
+        AttendanceParser parser = new AttendanceParser(handlerFor.apply(accumulator), malformedRowHandler);
+        try {
+            parseRange(channel, start, end, parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return accumulator;
+    }
+}
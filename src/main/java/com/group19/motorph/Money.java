@@ -0,0 +1,127 @@
+/**
+ * This class does the fixed-point money arithmetic of the MotorPH payroll system.
+ * Amounts are plain {@code long} counts of centavos and rates are {@code long} fixed-point numbers
+ * with {@link #RATE_SCALE} decimals, so the weekly payroll computation does exact integer arithmetic
+ * without allocating. Every step that cannot be exact (hourly rates, overtime, deductions, tax)
+ * is rounded to whole centavos once, with an explicit rounding mode, so totals add up to the centavo.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.math.*;                                     // For parsing decimal amounts and the overflow fallback
+
+final class Money {
+
+    static final int CENTAVO_SCALE = 2;                 // Decimals of an amount in centavos
+    static final int RATE_SCALE = 8;                    // Decimals of a fixed-point rate
+    static final long RATE_UNIT = 100_000_000L;         // A rate of 1 at RATE_SCALE decimals
+
+    private Money() {
+    }
+
+    /**
+     * Parses an amount such as {@code "90,000"} or {@code 535.71} into centavos, ignoring quotes,
+     * thousands separators and spaces. Amounts with more than two decimals are rounded half up.
+     *
+     * @param amount Decimal amount in pesos
+     * @return The amount in centavos
+     * @throws NumberFormatException If the text is not a decimal number
+     */
+    static long parse(String amount) {
+        return parse(amount, CENTAVO_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Parses a decimal number into a fixed-point number with the given number of decimals,
+     * ignoring quotes, thousands separators and spaces.
+     *
+     * @param value Decimal number
+     * @param scale Number of decimals of the result
+     * @param rounding Rounding of digits beyond {@code scale} decimals
+     * @return The number times 10^scale
+     * @throws NumberFormatException If the text is not a decimal number or does not fit in a long
+     */
+    static long parse(String value, int scale, RoundingMode rounding) {
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '"' && c != ',' && c != ' ') digits.append(c);
+        }
+        try {
+            return new BigDecimal(digits.toString()).setScale(scale, rounding).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount has too many decimals or is out of range: " + value.trim());
+        }
+    }
+
+    /**
+     * Computes {@code amount * factor / divisor} exactly and rounds it once.
+     *
+     * @param amount Amount (for example centavos)
+     * @param factor Multiplier (for example minutes, or a fixed-point rate)
+     * @param divisor Positive divisor (for example 60 minutes, or {@link #RATE_UNIT})
+     * @param rounding How the exact quotient is rounded to a whole number
+     * @return The rounded product
+     * @throws ArithmeticException If the rounding mode is UNNECESSARY and rounding is needed, or the result does not fit in a long
+     */
+    static long multiply(long amount, long factor, long divisor, RoundingMode rounding) {
+        long high = Math.multiplyHigh(amount, factor);
+        long product = amount * factor;
+        if ((high == 0 && product >= 0) || (high == -1 && product < 0)) return divide(product, divisor, rounding);
+        return new BigDecimal(BigInteger.valueOf(amount).multiply(BigInteger.valueOf(factor)))       // Product does not fit in a long
+                .divide(BigDecimal.valueOf(divisor), 0, rounding).longValueExact();
+    }
+
+    /**
+     * Divides and rounds the exact quotient to a whole number.
+     *
+     * @param dividend Dividend
+     * @param divisor Positive divisor
+     * @param rounding How the exact quotient is rounded
+     * @return The rounded quotient
+     * @throws ArithmeticException If the rounding mode is UNNECESSARY and rounding is needed
+     */
+    static long divide(long dividend, long divisor, RoundingMode rounding) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) return quotient;
+        long sign = dividend < 0 ? -1 : 1;                         // Direction away from zero
+        long rest = divisor - Math.abs(remainder);                  // Distance to the next whole number away from zero
+        boolean away = switch (rounding) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> sign > 0;
+            case FLOOR -> sign < 0;
+            case HALF_UP -> Math.abs(remainder) >= rest;
+            case HALF_DOWN -> Math.abs(remainder) > rest;
+            case HALF_EVEN -> Math.abs(remainder) > rest || (Math.abs(remainder) == rest && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+        };
+        return away ? quotient + sign : quotient;
+    }
+
+    /**
+     * Appends an amount in pesos with two decimals, for example {@code -1234.50}.
+     *
+     * @param out Builder to append to
+     * @param centavos Amount in centavos
+     * @return The builder
+     */
+    static StringBuilder append(StringBuilder out, long centavos) {
+        if (centavos < 0) out.append('-');
+        long magnitude = Math.abs(centavos);
+        out.append(magnitude / 100).append('.');
+        long fraction = magnitude % 100;
+        if (fraction < 10) out.append('0');
+        return out.append(fraction);
+    }
+
+    /**
+     * @param centavos Amount in centavos
+     * @return The amount in pesos with two decimals, for example {@code 1234.50}
+     */
+    static String format(long centavos) {
+        return append(new StringBuilder(24), centavos).toString();
+    }
+}
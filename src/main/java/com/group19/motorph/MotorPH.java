@@ -8,33 +8,74 @@
 
 package com.group19.motorph;
 
-import com.opencsv.CSVReader;                           // Library for reading CSV files
 import java.io.*;                                       // For file input/output operations
+import java.math.RoundingMode;                          // For rounding pay amounts to centavos
+import java.nio.charset.StandardCharsets;               // For writing the verification report
+import java.nio.file.*;                                 // For attendance shard files and spill directories
 import java.time.*;                                     // For date and time calculations
-import java.time.format.DateTimeFormatter;              // For parsing and formatting dates/times
-import java.time.format.DateTimeParseException;         // For handling date/time parsing errors
+import java.time.format.DateTimeFormatter;              // For formatting dates
 import java.util.*;                                     // For collections like ArrayList and TreeMap
+import java.util.concurrent.ExecutionException;         // For failures raised by payroll worker tasks
+import java.util.concurrent.ForkJoinPool;               // For computing payroll across multiple cores
 
 public class MotorPH {
     
     // Constants used throughout the payroll calculations
-    private static final double OVERTIME_RATE = 1.25; // Overtime pay rate multiplier (25% above regular rate)
     private static final int WEEKLY_PAYMENTS = 4;     // Number of weeks in a month for converting monthly amounts to weekly
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");      // Date format for parsing CSV dates
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("H:mm");            // Time format for parsing CSV times (24-hour)
+    private static final RoundingMode BASE_PAY_ROUNDING = RoundingMode.HALF_UP;     // Rounding of hours times the hourly rate to centavos
+    private static final RoundingMode OVERTIME_ROUNDING = RoundingMode.HALF_UP;     // Rounding of overtime pay to centavos
+    private static final RoundingMode ALLOWANCE_ROUNDING = RoundingMode.HALF_UP;    // Rounding of the weekly portion of monthly allowances
+    private static final RoundingMode DEDUCTION_ROUNDING = RoundingMode.HALF_UP;    // Rounding of SSS, PhilHealth and Pag-IBIG contributions
+    private static final RoundingMode TAX_ROUNDING = RoundingMode.HALF_UP;          // Rounding of withholding tax
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");      // Date format of CSV dates
+    static final String DEDUCTION_TABLE_FILE_PATH = "src/main/deductiontables.csv";                 // Path to CSV containing statutory deduction tables
+    private static final NavigableMap<LocalDate, DeductionTables> DEDUCTION_TABLES = loadDeductionTables();  // Deduction tables by effective date, loaded once
+    static final String WORK_SCHEDULE_FILE_PATH = System.getProperty("motorph.schedules", "src/main/workschedules.csv");  // Path to CSV containing the work schedules of employee groups
+    static final String HOLIDAY_FILE_PATH = System.getProperty("motorph.holidays", "src/main/holidays.csv");           // Path to CSV containing holiday calendars
+    private static final WorkSchedules WORK_SCHEDULES = loadWorkSchedules();        // Work schedules compiled once for applying the attendance rules
+    private static final int DEFAULT_SERVICE_PORT = 8080;                   // Port of the payroll service when none is given
+    private static final int PAYROLL_WORKERS = Integer.getInteger("motorph.workers", Runtime.getRuntime().availableProcessors());   // Worker threads for batch payroll
+    private static final String PAYSLIP_FORMAT = System.getProperty("motorph.output", PayslipSink.CONSOLE);    // Payslip output format (console, csv, jsonl or bank)
+    private static final String PAYSLIP_FILE_PATH = System.getProperty("motorph.outputFile");                 // File payslips are written to, or null for the console
+    private static final String MEMORY_BUDGET = System.getProperty("motorph.memoryBudget");                   // Heap budget of an out-of-core batch run (e.g. 2g), or null to run in memory
+    private static final String SPILL_DIRECTORY_PATH = System.getProperty("motorph.spillDir", System.getProperty("java.io.tmpdir"));   // Where an out-of-core run spills sorted runs
     
     /**
      * Main entry point of the MotorPH payroll system. Displays a menu to the user,
      * allowing them to choose between computing payroll for a specific employee or all employees.
      * Handles user input and initiates the payroll processing accordingly.
+     * Started with {@code --serve [port]}, it instead runs as a long-running local HTTP service
+     * (see {@link PayrollService}) that answers payslip requests until the process is stopped.
+     * Started with {@code --verify [engine]}, it instead computes the payroll of all employees with both
+     * the reference calculator and the given engine ({@code in-memory}, {@code index} or {@code out-of-core})
+     * and reports every payslip that differs (see {@link PayrollVerifier}).
+     * Attendance is read from the file, directory or glob pattern set by the {@code motorph.attendance}
+     * system property (see {@link AttendanceSource}), limited to the pay period set by the
+     * {@code motorph.periodStart} and {@code motorph.periodEnd} system properties (yyyy-MM-dd) if given.
      *
-     * @param args Command-line arguments (not used in this implementation)
+     * @param args Command-line arguments ({@code --serve [port]} to run as a service, {@code --verify [engine]} to verify an engine)
      */
     
     public static void main(String[] args) {
         // Define file paths for employee and attendance data
         String employeeFilePath = "src/main/employeedata.csv";          // Path to CSV containing employee details
-        String attendanceFilePath = "src/main/attendancerecord.csv";    // Path to CSV containing attendance records
+        String attendanceFilePath = System.getProperty("motorph.attendance", "src/main/attendancerecord.csv");  // CSV file, directory or glob of attendance records
+        PayPeriod payPeriod;                                            // Attendance dates to compute payroll for
+        try {
+            payPeriod = PayPeriod.parse(System.getProperty("motorph.periodStart"), System.getProperty("motorph.periodEnd"));
+        } catch (DateTimeException | IllegalArgumentException e) {
+            System.out.println("Error: invalid pay period: " + e.getMessage());            // Display error message
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("--serve")) {
+            startPayrollService(employeeFilePath, attendanceFilePath, payPeriod, args.length > 1 ? args[1] : null);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--verify")) {
+            verifyPayroll(employeeFilePath, attendanceFilePath, payPeriod, args.length > 1 ? args[1] : PayrollVerifier.IN_MEMORY);
+            return;
+        }
 
         Scanner inputScanner = new Scanner(System.in);                  // Scanner object to read user input from console
         boolean validInput = false;                                     // Flag to control the menu loop until valid input is received
@@ -44,6 +85,7 @@ public class MotorPH {
         System.out.println("Welcome to MotorPH Payroll!");                  // Welcome message for the user
         System.out.println("[1] Compute Payroll for a Specific Employee");  // Option 1 - Compute payroll for a single employee
         System.out.println("[2] Compute Payroll for All Employees");        // Option 2 - Compute payroll for all employees
+        System.out.println("[3] Preview Payroll for New Attendance");       // Option 3 - Recompute only weeks with newly appended attendance
         System.out.print("Enter selection: ");                              // Prompt the user to enter their choice
         
         // Check if input is an integer
@@ -61,327 +103,766 @@ public class MotorPH {
                     System.out.println("No input provided. Please try again."); // Handle empty input
                     continue; // Loop back to selection
                 }
-                processPayrollForEmployee(searchEmployeeNumber, employeeFilePath, attendanceFilePath);
+                processPayrollForEmployee(searchEmployeeNumber, employeeFilePath, attendanceFilePath, payPeriod);
                 validInput = true; // Exit loop after successful processing
             }
             case 2 -> {
-                // Option 2: Compute payroll for all employees
-                processPayrollForAllEmployees(employeeFilePath, attendanceFilePath);
+                // Option 2: Compute payroll for all employees, out of core if a memory budget is set
+                if (MEMORY_BUDGET != null) processPayrollForAllEmployeesOutOfCore(employeeFilePath, attendanceFilePath, payPeriod);
+                else processPayrollForAllEmployees(employeeFilePath, attendanceFilePath, payPeriod);
+                validInput = true; // Exit loop after successful processing
+            }
+            case 3 -> {
+                // Option 3: Compute payroll only for weeks changed by newly appended attendance
+                processPayrollForNewAttendance(employeeFilePath, attendanceFilePath, payPeriod);
                 validInput = true; // Exit loop after successful processing
             }
-            default -> System.out.println("Invalid choice. Please eneter 1 or 2.");
+            default -> System.out.println("Invalid choice. Please enter 1, 2 or 3.");
             }
         } else {
-            System.out.println("Invalid input. Please enter a number (1 or 2");
+            System.out.println("Invalid input. Please enter a number (1, 2 or 3)");
             inputScanner.nextLine();    // Clear the invalid input
         }
     }
         inputScanner.close();           // Close the scanner to free system resources
     }
     /**
-     * Processes payroll for a specific employee identified by their employee number.
-     * Reads employee data from the CSV file, extracts relevant details, and initiates
-     * payroll calculation based on attendance records.
+     * Starts the payroll service and keeps it running until the process is stopped.
      *
-     * @param employeeNumber The ID of the employee to process payroll for
      * @param employeeFilePath Path to the employee data CSV file
-     * @param attendanceFilePath Path to the attendance records CSV file
+     * @param attendanceFilePath Attendance CSV file, directory of CSV files, or glob pattern
+     * @param payPeriod Attendance dates to serve payslips for
+     * @param port Port to listen on, or null for the default port
      */
-    
-    private static void processPayrollForEmployee(String employeeNumber, String employeeFilePath, String attendanceFilePath) {
-        try (CSVReader reader = new CSVReader(new FileReader(employeeFilePath))) {
-            reader.readNext(); // Skip header
-            String[] employeeData;
-            while ((employeeData = reader.readNext()) != null) {
-                if (employeeData.length >= 19 && employeeData[0].trim().equals(employeeNumber)) {
-                    String fullName = employeeData[1].trim() + ", " + employeeData[2].trim();
-                    String birthDay = employeeData[3].trim();
-                    double hourlyRate = Double.parseDouble(employeeData[18].trim().replaceAll("\"", "").replace(",", ""));
-                    double riceSubsidy = Double.parseDouble(employeeData[14].trim().replaceAll("\"", "").replace(",", ""));
-                    double phoneAllowance = Double.parseDouble(employeeData[15].trim().replaceAll("\"", "").replace(",", ""));
-                    double clothingAllowance = Double.parseDouble(employeeData[16].trim().replaceAll("\"", "").replace(",", ""));
-                    
-                    // Display basic employee information
-                    System.out.println("-------------------------------------------------");
-                    System.out.println("Name: " + fullName);
-                    System.out.println("Birthday: " + birthDay);
-                    System.out.println("-------------------------------------------------");
-                    
-                    // Calculate and display payroll based on attendance
-                    calculateWeeklyWorkHours(employeeNumber, fullName, hourlyRate, riceSubsidy, phoneAllowance, clothingAllowance, attendanceFilePath);
+    private static void startPayrollService(String employeeFilePath, String attendanceFilePath, PayPeriod payPeriod, String port) {
+        try {
+            PayrollService service = PayrollService.start(employeeFilePath, attendanceFilePath, payPeriod,
+                    port == null ? DEFAULT_SERVICE_PORT : Integer.parseInt(port), PAYROLL_WORKERS);
+            Runtime.getRuntime().addShutdownHook(new Thread(service::stop));      // Stop cleanly on Ctrl+C
+            System.out.println("MotorPH Payroll service listening on http://localhost:" + service.port() + "/payslips/{employeeNumber}");
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Error starting payroll service: " + e.getMessage());        // Display error message
+            e.printStackTrace(); // Print stack trace for debugging
+        }
+    }
+
+    /**
+     * Verifies a payroll engine against the reference calculator. Both compute the payroll of every
+     * employee from the same files in parallel, and the payslips are compared per employee-week.
+     * The mismatch report is written as CSV to the file set by the {@code motorph.outputFile} system
+     * property, or to the console if it is not set, followed by a summary on the console.
+     *
+     * @param employeeFilePath Path to the employee data CSV file
+     * @param attendanceFilePath Attendance CSV file, directory of CSV files, or glob pattern
+     * @param payPeriod Attendance dates to compute payroll for
+     * @param engineName Engine to verify: in-memory, index or out-of-core
+     */
+    private static void verifyPayroll(String employeeFilePath, String attendanceFilePath, PayPeriod payPeriod, String engineName) {
+        PayrollMetrics metrics = new PayrollMetrics("verify-" + engineName);
+        EmployeeRepository employees = loadEmployees(employeeFilePath);     // Employees in employee number order
+        if (employees == null) return;
+        List<Employee> all = employees.all();
+        ForkJoinPool workerPool = new ForkJoinPool(PAYROLL_WORKERS);
+        try {
+            PayrollVerifier.Engine engine;
+            switch (engineName) {
+                case PayrollVerifier.IN_MEMORY -> engine = sink -> {
+                    Map<String, TreeMap<LocalDate, Duration[]>> attendanceIndex =
+                            processAttendanceDataForAllEmployees(attendanceFilePath, payPeriod, workerPool, metrics);
+                    List<List<Payslip>> payslips = computePayroll(all, attendanceIndex, workerPool);
+                    writeVerifiedPayslips(all, payslips, sink, metrics);
+                };
+                case PayrollVerifier.INDEX -> {
+                    if (!payPeriod.isWholeWeeks()) {
+                        System.out.println("Error: the index engine only answers pay periods from a Monday to a Sunday");
+                        return;
+                    }
+                    engine = sink -> {
+                        // Index every date and query it by pay period, as the payroll service does
+                        AttendanceShards attendance = loadAttendance(attendanceFilePath, PayPeriod.ALL, workerPool, metrics);
+                        WeeklyAttendanceIndex weeks = WeeklyAttendanceIndex.of(attendance == null ? new WeeklyAttendance()
+                                : aggregateAttendance(attendance, workerPool, payPeriod.isAll() ? metrics : new PayrollMetrics("index")));
+                        if (attendance != null && !payPeriod.isAll()) {     // The index keeps no record counts per period
+                            aggregateAttendance(new AttendanceShards(attendance.shards(), payPeriod, 0), workerPool, metrics);
+                        }
+                        List<List<Payslip>> payslips = computePayroll(all, weeks.weeklyRecords(payPeriod), workerPool);
+                        writeVerifiedPayslips(all, payslips, sink, metrics);
+                    };
+                }
+                case PayrollVerifier.OUT_OF_CORE -> {
+                    long memoryBudget = memoryBudget();
+                    if (memoryBudget < 0) return;
+                    engine = sink -> writePayrollOutOfCore(all, attendanceFilePath, payPeriod, memoryBudget, sink, metrics);
+                }
+                default -> {
+                    System.out.println("Error: unknown payroll engine " + engineName + " (expected " + PayrollVerifier.IN_MEMORY
+                            + ", " + PayrollVerifier.INDEX + " or " + PayrollVerifier.OUT_OF_CORE + ")");
                     return;
                 }
             }
-            System.out.println("Employee with ID " + employeeNumber + " not found.");       // Employee not found in CSV
-        } catch (Exception e) {
-            System.out.println("Error reading employee file: " + e.getMessage());           // Display error message
-            e.printStackTrace(); // Print stack trace for debugging
-            e.printStackTrace(); // Print stack trace for debugging   
-        }
-    }
-
-    private static void processPayrollForAllEmployees(String employeeFilePath, String attendanceFilePath) {
-        try (CSVReader reader = new CSVReader(new FileReader(employeeFilePath))) {
-            reader.readNext(); // Skip the header row
-            String[] employeeData;      // Array to hold each row of employee data
-            while ((employeeData = reader.readNext()) != null) {                            // Read each row until end of file
-                if (employeeData.length >= 19) {                                            // Ensure row has enough columns
-                    
-                    // Extract employee details
-                    String employeeNumber = employeeData[0].trim();
-                    String fullName = employeeData[1].trim() + ", " + employeeData[2].trim();
-                    String birthDay = employeeData[3].trim();
-                    double hourlyRate = Double.parseDouble(employeeData[18].trim().replaceAll("\"", "").replace(",", ""));
-                    double riceSubsidy = Double.parseDouble(employeeData[14].trim().replaceAll("\"", "").replace(",", ""));
-                    double phoneAllowance = Double.parseDouble(employeeData[15].trim().replaceAll("\"", "").replace(",", ""));
-                    double clothingAllowance = Double.parseDouble(employeeData[16].trim().replaceAll("\"", "").replace(",", ""));
-                    
-                    // Display employee information (employee number, full name and birtday)
-                    System.out.println("-------------------------------------------------");
-                    System.out.println("Employee Number: " + employeeNumber);
-                    System.out.println("Name: " + fullName);
-                    System.out.println("Birthday: " + birthDay);
-                    System.out.println("-------------------------------------------------");
-                    
-                    // Calculate and display payroll for this employee
-                    calculateWeeklyWorkHours(employeeNumber, fullName, hourlyRate, riceSubsidy, phoneAllowance, clothingAllowance, attendanceFilePath);
-                }
+
+            PayrollVerifier.Summary summary;
+            try (OutputStream out = payslipOutput();
+                 Writer report = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+                summary = PayrollVerifier.verify(all, attendanceFilePath, payPeriod, engineName, engine, metrics, report);
             }
-        } catch (Exception e) {
-            System.out.println("Error reading employee file: " + e.getMessage());           // Display error message
+            System.out.println("Verified " + engineName + " against the reference calculator: " + summary.payslips() + " payslips of "
+                    + summary.employees() + " employees, " + summary.mismatches() + (summary.mismatches() == 1 ? " mismatch" : " mismatches"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException | UncheckedIOException | ExecutionException e) {
+            System.out.println("Error verifying payroll: " + e.getMessage());               // Display error message
             e.printStackTrace(); // Print stack trace for debugging
+            return;
+        } finally {
+            workerPool.shutdown();
         }
+        metrics.finish();
     }
-/**
-     * Orchestrates the payroll calculation process for an employee by processing their
-     * attendance data and displaying the payroll summary. This method acts as a bridge
-     * between attendance processing and payroll calculation/display.
+
+    /**
+     * Hands an engine's computed payslips to the verifier's sink and counts them.
+     */
+    private static void writeVerifiedPayslips(List<Employee> employees, List<List<Payslip>> payslips, PayslipSink sink,
+                                              PayrollMetrics metrics) throws IOException {
+        for (int i = 0; i < employees.size(); i++) {
+            sink.write(employees.get(i), payslips.get(i));
+            metrics.payslips += payslips.get(i).size();
+        }
+        metrics.employees = employees.size();
+    }
+
+    /**
+     * Processes payroll for a specific employee identified by their employee number.
+     * Looks up the employee in the employee repository and initiates
+     * payroll calculation based on attendance records.
      *
-     * @param employeeId Employee's ID number
-     * @param fullName Employee's full name
-     * @param hourlyRate Employee's hourly pay rate
-     * @param riceSubsidy Monthly rice subsidy amount
-     * @param phoneAllowance Monthly phone allowance amount
-     * @param clothingAllowance Monthly clothing allowance amount
-     * @param attendanceFilePath Path to the attendance records CSV file
+     * @param employeeNumber The ID of the employee to process payroll for
+     * @param employeeFilePath Path to the employee data CSV file
+     * @param attendanceFilePath Attendance CSV file, directory of CSV files, or glob pattern
+     * @param payPeriod Attendance dates to compute payroll for
      */
     
-    private static void calculateWeeklyWorkHours(String employeeId, String fullName, double hourlyRate,
-                                                 double riceSubsidy, double phoneAllowance, double clothingAllowance,
-                                                 String attendanceFilePath) {
-        TreeMap<LocalDate, Duration[]> weeklyRecords = processAttendanceData(employeeId, attendanceFilePath);       // Process attendance data from attendance CSV file.
-        if (weeklyRecords.isEmpty()) {
-            System.out.println("No valid attendance records found for " + fullName);        // No records found
+    private static void processPayrollForEmployee(String employeeNumber, String employeeFilePath, String attendanceFilePath,
+                                                  PayPeriod payPeriod) {
+        PayrollMetrics metrics = new PayrollMetrics("employee");
+        EmployeeRepository employees = loadEmployees(employeeFilePath);
+        if (employees == null) return;
+        Employee employee = employeeNumber.matches("\\d{1,9}") ? employees.findById(Integer.parseInt(employeeNumber)) : null;
+        if (employee == null) {
+            System.out.println("Employee with ID " + employeeNumber + " not found.");       // Employee not found in CSV
             return;
         }
-        calculateAndDisplayPayroll(fullName, weeklyRecords, hourlyRate, riceSubsidy, phoneAllowance, clothingAllowance);        // Calculate and display payroll
+
+        // Display basic employee information
+        if (PAYSLIP_FORMAT.equals(PayslipSink.CONSOLE)) {
+            System.out.println("-------------------------------------------------");
+            System.out.println("Name: " + employee.fullName());
+            System.out.println("Birthday: " + employee.birthday());
+            System.out.println("-------------------------------------------------");
+        }
+
+        // Calculate and display payroll based on attendance
+        TreeMap<LocalDate, Duration[]> weeklyRecords = processAttendanceData(employee.employeeNumber(), attendanceFilePath, payPeriod, metrics);
+        List<Payslip> payslips;
+        PayrollMetrics.Timer timer = metrics.time(PayrollMetrics.Stage.COMPUTE);
+        try {
+            payslips = computePayslips(employee, weeklyRecords);
+        } finally {
+            timer.stop();
+        }
+        metrics.employees = 1;
+        metrics.payslips = payslips.size();
+        writePayslips(List.of(employee), List.of(payslips), false, metrics);
+        metrics.finish();
     }
 
     /**
-     * Processes attendance data from the CSV file for a given employee and organizes it
-     * into weekly records of regular work hours and overtime hours.
+     * Processes payroll for every employee in the employee data file.
+     * The attendance file is read only once and grouped by employee and week up front,
+     * so each employee's payroll is computed from the in-memory index instead of rescanning the file.
+     * The run's metrics are emitted when it finishes (see {@link PayrollMetrics}).
      *
-     * @param employeeId Employee's ID number
-     * @param attendanceFilePath Path to the attendance records CSV file
-     * @return TreeMap with week start dates as keys and arrays of [workDuration, overtimeDuration] as values
+     * @param employeeFilePath Path to the employee data CSV file
+     * @param attendanceFilePath Attendance CSV file, directory of CSV files, or glob pattern
+     * @param payPeriod Attendance dates to compute payroll for
+     */
+    static void processPayrollForAllEmployees(String employeeFilePath, String attendanceFilePath, PayPeriod payPeriod) {
+        PayrollMetrics metrics = new PayrollMetrics("all-employees");
+        EmployeeRepository employees = loadEmployees(employeeFilePath);     // Employees in employee number order
+        if (employees == null) return;
+
+        ForkJoinPool workerPool = new ForkJoinPool(PAYROLL_WORKERS);
+        try {
+            Map<String, TreeMap<LocalDate, Duration[]>> attendanceIndex = processAttendanceDataForAllEmployees(attendanceFilePath, payPeriod, workerPool, metrics);   // Single pass over the attendance files
+            printPayroll(employees.all(), attendanceIndex, workerPool, metrics);
+        } finally {
+            workerPool.shutdown();
+        }
+        metrics.finish();
+    }
+
+    /**
+     * Processes payroll for every employee with heap use capped by the {@code motorph.memoryBudget}
+     * system property, for attendance too large to hold in memory. The attendance files are streamed
+     * through an external sort that spills sorted runs under the {@code motorph.spillDir} directory,
+     * and the merged runs are read back one employee at a time: each employee's records go through the
+     * attendance rules and their payslips are computed and written before the next employee is read.
+     * The output is the same as {@link #processPayrollForAllEmployees}, except that invalid time
+     * records are reported while the payslips are being written.
+     *
+     * @param employeeFilePath Path to the employee data CSV file
+     * @param attendanceFilePath Attendance CSV file, directory of CSV files, or glob pattern
+     * @param payPeriod Attendance dates to compute payroll for
+     */
+    private static void processPayrollForAllEmployeesOutOfCore(String employeeFilePath, String attendanceFilePath, PayPeriod payPeriod) {
+        PayrollMetrics metrics = new PayrollMetrics("out-of-core");
+        long memoryBudget = memoryBudget();
+        if (memoryBudget < 0) return;
+        EmployeeRepository employees = loadEmployees(employeeFilePath);     // Employees in employee number order
+        if (employees == null) return;
+
+        try (OutputStream out = payslipOutput();
+             PayslipSink sink = PayslipSink.open(PAYSLIP_FORMAT, out, true)) {
+            writePayrollOutOfCore(employees.all(), attendanceFilePath, payPeriod, memoryBudget, sink, metrics);
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.out.println("Error processing payroll out of core: " + e.getMessage());  // Display error message
+            e.printStackTrace(); // Print stack trace for debugging
+            return;
+        }
+        metrics.finish();
+    }
+
+    /**
+     * Parses the heap budget set by the {@code motorph.memoryBudget} system property.
+     *
+     * @return The budget in bytes, or -1 if it is not set, not a valid size or larger than the maximum heap
+     */
+    private static long memoryBudget() {
+        if (MEMORY_BUDGET == null) {
+            System.out.println("Error: no memory budget; set -Dmotorph.memoryBudget (e.g. 2g)");
+            return -1;
+        }
+        long memoryBudget;
+        try {
+            memoryBudget = ExternalAttendanceSort.parseSize(MEMORY_BUDGET);
+        } catch (NumberFormatException e) {
+            System.out.println("Error: invalid memory budget: " + MEMORY_BUDGET);          // Display error message
+            return -1;
+        }
+        if (memoryBudget > Runtime.getRuntime().maxMemory()) {
+            System.out.println("Error: memory budget " + MEMORY_BUDGET + " is larger than the maximum heap; raise -Xmx or lower the budget");
+            return -1;
+        }
+        return memoryBudget;
+    }
+
+    /**
+     * Computes the payroll of every employee through an external sort of the attendance records and
+     * writes each employee's payslips as soon as they are computed (see
+     * {@link #processPayrollForAllEmployeesOutOfCore}).
+     *
+     * @param employees Employees in employee number order
+     * @param attendanceFilePath Attendance CSV file, directory of CSV files, or glob pattern
+     * @param payPeriod Attendance dates to compute payroll for
+     * @param memoryBudget Heap the external sort may use, in bytes
+     * @param sink Receives the payslips of every employee, in employee order
+     * @param metrics Metrics of the run
+     * @throws IOException If the attendance files, the run files or the output cannot be read or written
      */
-    private static TreeMap<LocalDate, Duration[]> processAttendanceData(String employeeId, String attendanceFilePath) {
-        // Define standard work hours and break time
-        LocalTime workStart = LocalTime.of(8, 0);                                   // Standard start time (8:00 AM)  
-        LocalTime graceEnd = workStart.plusMinutes(10);                             // Grace period end (8:10 AM)
-        LocalTime workEnd = LocalTime.of(17, 0);                                    // Standard end time (5:00 PM)
-        Duration breakTime = Duration.ofHours(1);                                   // 1-hour break deduction per day                                   
-        TreeMap<LocalDate, Duration[]> weeklyRecords = new TreeMap<>();             // Store weekly work and overtime durations
-
-        try (CSVReader reader = new CSVReader(new FileReader(attendanceFilePath))) {
-            reader.readNext(); // Skip the header row
-            String[] attendanceRecord;          // Array to hold each attendance record
-            while ((attendanceRecord = reader.readNext()) != null) {                // Read each row until end of file
-                if (attendanceRecord.length >= 6 && attendanceRecord[0].trim().equals(employeeId)) {        // Match employee ID
-                    processSingleAttendanceRecord(attendanceRecord, weeklyRecords, workStart, graceEnd, workEnd, breakTime);       // Process the record
+    private static void writePayrollOutOfCore(List<Employee> employees, String attendanceFilePath, PayPeriod payPeriod,
+                                              long memoryBudget, PayslipSink sink, PayrollMetrics metrics) throws IOException {
+        try (ExternalAttendanceSort sort = new ExternalAttendanceSort(memoryBudget, Path.of(SPILL_DIRECTORY_PATH))) {
+            PayrollMetrics.Timer ingestTimer = metrics.time(PayrollMetrics.Stage.INGEST);
+            try {
+                List<Path> shards = AttendanceSource.shardPaths(attendanceFilePath);
+                List<Path> shardsInPeriod = shards.stream().filter(shard -> AttendanceSource.mayContain(shard, payPeriod)).toList();
+                metrics.attendanceShards = shardsInPeriod.size();
+                metrics.skippedShards = shards.size() - shardsInPeriod.size();
+                for (Path shard : shardsInPeriod) {
+                    AttendanceParser parser = new AttendanceParser(payPeriod.filter(sort),
+                            rowOffset -> System.err.println("Error parsing attendance record at byte " + rowOffset));   // Parsing error
+                    try (InputStream in = Files.newInputStream(shard)) {
+                        parser.parse(in);               // Streamed, so the file is never held in memory
+                    }
+                    metrics.attendanceRows += parser.recordCount();
+                    metrics.skippedRows += parser.skippedCount();
+                    metrics.malformedRows += parser.malformedCount();
+                }
+            } finally {
+                ingestTimer.stop();
+            }
+
+            PayrollMetrics.Timer mergeTimer = metrics.time(PayrollMetrics.Stage.MERGE);
+            try (ExternalAttendanceSort.Cursor records = sort.sorted()) {
+                metrics.sortRuns = sort.runCount();
+                int nextEmployee = 0;
+                boolean hasRecord = records.next();
+                while (hasRecord) {
+                    int employeeId = records.employeeId();
+                    while (nextEmployee < employees.size() && employees.get(nextEmployee).employeeNumber() < employeeId) {
+                        sink.write(employees.get(nextEmployee++), List.of());  // Employee without attendance
+                    }
+                    WeeklyAttendance weeklyAttendance = new WeeklyAttendance(64);  // This employee's weekly totals only
+                    do {
+                        processSingleAttendanceRecord(employeeId, records.epochDay(), records.logInMinute(), records.logOutMinute(),
+                                weeklyAttendance, metrics);
+                        hasRecord = records.next();
+                    } while (hasRecord && records.employeeId() == employeeId);
+                    if (nextEmployee < employees.size() && employees.get(nextEmployee).employeeNumber() == employeeId) {
+                        Employee employee = employees.get(nextEmployee++);
+                        List<Payslip> payslips = computePayslips(employee,
+                                weeklyAttendance.toWeeklyRecords().getOrDefault(Integer.toString(employeeId), new TreeMap<>()));
+                        metrics.payslips += payslips.size();
+                        sink.write(employee, payslips);
+                    }                                                           // Otherwise the employee is not in the employee file
                 }
+                while (nextEmployee < employees.size()) sink.write(employees.get(nextEmployee++), List.of());    // Employees after the last attendance
+                metrics.employees = employees.size();
+            } finally {
+                mergeTimer.stop();
             }
-        } catch (Exception e) {
+            metrics.spilledBytes = sort.spilledBytes();
+        }
+    }
+
+    /**
+     * Processes payroll only for the weeks affected by attendance rows appended since the last run.
+     * The processed file offset and each employee's weekly totals are saved next to the attendance
+     * file, so only the new rows are read and only the payslips of the changed weeks are printed.
+     * With a pay period, shards outside the period are skipped and only rows dated within the period
+     * are counted, the same as the all-employees batch, with weekly totals saved per pay period.
+     *
+     * @param employeeFilePath Path to the employee data CSV file
+     * @param attendanceFilePath Attendance CSV file, directory of CSV files, or glob pattern
+     * @param payPeriod Attendance dates to compute payroll for
+     */
+    private static void processPayrollForNewAttendance(String employeeFilePath, String attendanceFilePath, PayPeriod payPeriod) {
+        PayrollMetrics metrics = new PayrollMetrics("new-attendance");
+        IncrementalAttendance.Update update;
+        PayrollMetrics.Timer ingestTimer = metrics.time(PayrollMetrics.Stage.INGEST);   // Parsing and the attendance rules run together here
+        try {
+            List<Path> shards = AttendanceSource.shardPaths(attendanceFilePath);
+            List<Path> shardsInPeriod = shards.stream().filter(shard -> AttendanceSource.mayContain(shard, payPeriod)).toList();
+            metrics.attendanceShards = shardsInPeriod.size();
+            metrics.skippedShards = shards.size() - shardsInPeriod.size();
+            update = IncrementalAttendance.update(shardsInPeriod, payPeriod, WORK_SCHEDULES.fingerprint(),
+                    weeklyAttendance -> (employeeId, epochDay, logIn, logOut) ->
+                            processSingleAttendanceRecord(employeeId, epochDay, logIn, logOut, weeklyAttendance, metrics),
+                    rowOffset -> System.err.println("Error parsing attendance record at byte " + rowOffset));   // Parsing error
+        } catch (IOException e) {
             System.out.println("Error reading attendance file: " + e.getMessage());         // Display error message
             e.printStackTrace();               // Print stack trace for debugging
+            return;
+        } finally {
+            ingestTimer.stop();
         }
-        return weeklyRecords;                  // Return the compiled weekly records
+        metrics.attendanceRows = update.newRecords();
+        metrics.skippedRows = update.skippedRows();
+        metrics.malformedRows = update.malformedRows();
+        System.err.println((update.fullRecompute() ? "Processed all " : "Processed ")        // Kept apart from CSV or bank file output
+                + update.newRecords() + " new attendance records.");
+        if (update.changed().size() == 0) {         // Nothing to recompute
+            metrics.finish();
+            return;
+        }
+
+        Map<String, TreeMap<LocalDate, Duration[]>> changedWeeks;
+        PayrollMetrics.Timer aggregateTimer = metrics.time(PayrollMetrics.Stage.AGGREGATE);
+        try {
+            changedWeeks = update.changedWeeklyRecords();      // Only rows within the pay period were added
+        } finally {
+            aggregateTimer.stop();
+        }
+        EmployeeRepository employees = loadEmployees(employeeFilePath);
+        if (employees == null) return;
+        List<Employee> changedEmployees = employees.all().stream()
+                .filter(employee -> changedWeeks.containsKey(Integer.toString(employee.employeeNumber())))    // Only employees with changed weeks
+                .toList();
+
+        ForkJoinPool workerPool = new ForkJoinPool(PAYROLL_WORKERS);
+        try {
+            printPayroll(changedEmployees, changedWeeks, workerPool, metrics);
+        } finally {
+            workerPool.shutdown();
+        }
+        metrics.finish();
     }
 
     /**
-     * Processes a single attendance record to calculate regular work and overtime durations
-     * for a day, then updates the weekly records accordingly.
+     * Loads the employee data file into an employee repository.
      *
-     * @param attendanceRecord Array containing attendance data for a day
-     * @param weeklyRecords TreeMap to store weekly durations
-     * @param workStart Regular start time
-     * @param graceEnd Grace period end time
-     * @param workEnd Regular end time
-     * @param breakTime Daily break duration to deduct
+     * @param employeeFilePath Path to the employee data CSV file
+     * @return The employees, or null if the file cannot be read
      */
-    private static void processSingleAttendanceRecord(String[] attendanceRecord, TreeMap<LocalDate, Duration[]> weeklyRecords,
-                                                      LocalTime workStart, LocalTime graceEnd, LocalTime workEnd, Duration breakTime) {
-        String dateStr = attendanceRecord[3].trim();
-        String logInStr = attendanceRecord[4].trim();
-        String logOutStr = attendanceRecord[5].trim();
+    private static EmployeeRepository loadEmployees(String employeeFilePath) {
+        try {
+            return EmployeeRepository.load(employeeFilePath);
+        } catch (IOException e) {
+            System.out.println("Error reading employee file: " + e.getMessage());           // Display error message
+            e.printStackTrace(); // Print stack trace for debugging
+            return null;
+        }
+    }
+
+    /**
+     * Computes and writes the payroll of the given employees. Payslips are computed in parallel on
+     * the worker pool (size set by the {@code motorph.workers} system property, defaulting to the
+     * number of available cores) and written in the order of the employee list.
+     *
+     * @param employees Employees to compute payroll for
+     * @param attendanceIndex Weekly attendance records keyed by employee ID
+     * @param workerPool Pool the payslips are computed on
+     * @param metrics Metrics of the run
+     */
+    private static void printPayroll(List<Employee> employees, Map<String, TreeMap<LocalDate, Duration[]>> attendanceIndex,
+                                     ForkJoinPool workerPool, PayrollMetrics metrics) {
+        try {
+            List<List<Payslip>> payslips;
+            PayrollMetrics.Timer timer = metrics.time(PayrollMetrics.Stage.COMPUTE);
+            try {
+                payslips = computePayroll(employees, attendanceIndex, workerPool);
+            } finally {
+                timer.stop();
+            }
+            metrics.employees = employees.size();
+            for (List<Payslip> employeePayslips : payslips) metrics.payslips += employeePayslips.size();
+            writePayslips(employees, payslips, true, metrics);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println("Error computing payroll: " + e.getCause().getMessage());    // Display error message
+            e.printStackTrace(); // Print stack trace for debugging
+        }
+    }
+
+    /**
+     * Computes the payslips of the given employees in parallel on the worker pool.
+     *
+     * @param employees Employees to compute payroll for
+     * @param attendanceIndex Weekly attendance records keyed by employee ID
+     * @param workerPool Pool the payslips are computed on
+     * @return Weekly payslips of the employee at the same index
+     * @throws InterruptedException If interrupted while waiting for the workers
+     * @throws ExecutionException If computing an employee's payslips fails
+     */
+    private static List<List<Payslip>> computePayroll(List<Employee> employees, Map<String, TreeMap<LocalDate, Duration[]>> attendanceIndex,
+                                                      ForkJoinPool workerPool) throws InterruptedException, ExecutionException {
+        // Compute each employee's payslips independently; the ordered stream keeps results in employee order
+        return workerPool.submit(() -> employees.parallelStream()
+                .map(employee -> computePayslips(employee,
+                        attendanceIndex.getOrDefault(Integer.toString(employee.employeeNumber()), new TreeMap<>())))
+                .toList()).get();
+    }
+
+    /**
+     * Writes computed payslips in the format set by the {@code motorph.output} system property
+     * (console, csv, jsonl or bank; console by default), to the file set by the
+     * {@code motorph.outputFile} system property or to the console if it is not set.
+     *
+     * @param employees Employees in the order they are written
+     * @param payslips Weekly payslips of the employee at the same index
+     * @param employeeHeader Whether the console report starts each employee with an employee number, name and birthday block
+     * @param metrics Metrics of the run
+     */
+    private static void writePayslips(List<Employee> employees, List<List<Payslip>> payslips, boolean employeeHeader,
+                                      PayrollMetrics metrics) {
+        PayrollMetrics.Timer timer = metrics.time(PayrollMetrics.Stage.RENDER);
+        try (OutputStream out = payslipOutput();
+             PayslipSink sink = PayslipSink.open(PAYSLIP_FORMAT, out, employeeHeader)) {
+            for (int i = 0; i < employees.size(); i++) sink.write(employees.get(i), payslips.get(i));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error writing payslips: " + e.getMessage());               // Display error message
+            e.printStackTrace(); // Print stack trace for debugging
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * @return The file set by the {@code motorph.outputFile} system property, or the console if it is not set
+     */
+    private static OutputStream payslipOutput() throws IOException {
+        return PAYSLIP_FILE_PATH == null ? consoleOutput() : new FileOutputStream(PAYSLIP_FILE_PATH);
+    }
+
+    /**
+     * @return A stream that writes to the console and only flushes it when closed
+     */
+    private static OutputStream consoleOutput() {
+        return new FilterOutputStream(System.out) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
 
-        if (logInStr.isEmpty() || logOutStr.isEmpty()) return;      // Skip records with missing times
+            @Override
+            public void close() throws IOException {
+                flush();            // Keep the console open
+            }
+        };
+    }
 
+    /**
+     * Processes attendance data for a given employee and organizes it into weekly records
+     * of regular work hours and overtime hours. Only the employee's own records are read
+     * from the attendance caches (see {@link #loadAttendance}).
+     *
+     * @param employeeId Employee's ID number
+     * @param attendanceFilePath Attendance CSV file, directory of CSV files, or glob pattern
+     * @param payPeriod Attendance dates to include
+     * @param metrics Metrics of the run
+     * @return TreeMap with week start dates as keys and arrays of [workDuration, overtimeDuration] as values
+     */
+    private static TreeMap<LocalDate, Duration[]> processAttendanceData(int employeeId, String attendanceFilePath, PayPeriod payPeriod,
+                                                                        PayrollMetrics metrics) {
+        ForkJoinPool workerPool = new ForkJoinPool(PAYROLL_WORKERS);
         try {
-            LocalDate date = LocalDate.parse(dateStr, DATE_FORMATTER);      // Parse the date
-            if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) return;       // Skip weekends
+            AttendanceShards attendance = loadAttendance(attendanceFilePath, payPeriod, workerPool, metrics);
+            return attendance == null ? new TreeMap<>() : weeklyRecordsOf(employeeId, attendance, metrics);
+        } finally {
+            workerPool.shutdown();
+        }
+    }
 
-            LocalTime logIn = LocalTime.parse(logInStr, TIME_FORMATTER);            // Parse login time
-            LocalTime logOut = LocalTime.parse(logOutStr, TIME_FORMATTER);          // Parse logout time
+    /**
+     * Organizes one employee's loaded attendance records into weekly records of regular
+     * work hours and overtime hours.
+     *
+     * @param employeeId Employee's ID number
+     * @param attendance Loaded attendance records
+     * @param metrics Metrics of the run
+     * @return TreeMap with week start dates as keys and arrays of [workDuration, overtimeDuration] as values
+     */
+    static TreeMap<LocalDate, Duration[]> weeklyRecordsOf(int employeeId, AttendanceShards attendance, PayrollMetrics metrics) {
+        PayrollMetrics.Timer timer = metrics.time(PayrollMetrics.Stage.AGGREGATE);
+        try {
+            WeeklyAttendance weeklyAttendance = new WeeklyAttendance(64);           // Store weekly work and overtime durations
+            attendance.forEachRecordOf(employeeId, (id, epochDay, logIn, logOut) ->
+                    processSingleAttendanceRecord(id, epochDay, logIn, logOut, weeklyAttendance, metrics));    // Process each of the employee's records
+            return weeklyAttendance.toWeeklyRecords().getOrDefault(Integer.toString(employeeId), new TreeMap<>());  // Return the compiled weekly records
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Processes the attendance records of all employees in a single pass, grouping
+     * each employee's records into weekly regular and overtime durations.
+     *
+     * @param attendanceFilePath Attendance CSV file, directory of CSV files, or glob pattern
+     * @param payPeriod Attendance dates to include
+     * @param workerPool Pool the attendance files are parsed and aggregated on
+     * @param metrics Metrics of the run
+     * @return Map of employee ID to that employee's weekly records (week start date to [workDuration, overtimeDuration])
+     */
+    private static Map<String, TreeMap<LocalDate, Duration[]>> processAttendanceDataForAllEmployees(String attendanceFilePath, PayPeriod payPeriod,
+                                                                                                 ForkJoinPool workerPool, PayrollMetrics metrics) {
+        AttendanceShards attendance = loadAttendance(attendanceFilePath, payPeriod, workerPool, metrics);
+        if (attendance == null) return new HashMap<>();
+        PayrollMetrics.Timer timer = metrics.time(PayrollMetrics.Stage.AGGREGATE);
+        try {
+            return aggregateAttendance(attendance, workerPool, metrics).toWeeklyRecords();     // Return the compiled index for all employees
+        } finally {
+            timer.stop();
+        }
+    }
 
-            if (logOut.isBefore(logIn)) {
-                System.out.println("Error: Invalid time record for " + attendanceRecord[0] + " on " + dateStr);     // Invalid time range
-                return;
+    /**
+     * Applies the attendance rules to the records of every shard that fall within the pay period.
+     * Shards are aggregated in parallel, each into its own weekly totals, and the totals are then merged.
+     *
+     * @param attendance Loaded attendance shards
+     * @param workerPool Pool the shards are aggregated on
+     * @param metrics Metrics of the run; its day off, holiday, invalid and late record counts are updated
+     * @return Weekly totals of all employees
+     */
+    static WeeklyAttendance aggregateAttendance(AttendanceShards attendance, ForkJoinPool workerPool, PayrollMetrics metrics) {
+        List<AttendanceColumns> shards = attendance.shards();
+        if (shards.size() == 1) return aggregateAttendance(attendance, shards.get(0), metrics);
+        record ShardTotals(WeeklyAttendance weeklyAttendance, PayrollMetrics metrics) {
+        }
+        try {
+            List<ShardTotals> shardTotals = workerPool.submit(() -> shards.parallelStream()
+                    .map(shard -> {
+                        PayrollMetrics shardMetrics = new PayrollMetrics("shard");     // Counted apart, as shards run concurrently
+                        return new ShardTotals(aggregateAttendance(attendance, shard, shardMetrics), shardMetrics);
+                    })
+                    .toList()).get();
+            WeeklyAttendance weeklyAttendance = new WeeklyAttendance();
+            for (ShardTotals totals : shardTotals) {
+                weeklyAttendance.merge(totals.weeklyAttendance());      // Weeks that span shards are added up
+                metrics.addRecordCounts(totals.metrics());
             }
+            return weeklyAttendance;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new WeeklyAttendance();
+        } catch (ExecutionException e) {
+            System.out.println("Error processing attendance: " + e.getCause().getMessage());  // Display error message
+            e.printStackTrace(); // Print stack trace for debugging
+            return new WeeklyAttendance();
+        }
+    }
 
-            boolean isLate = logIn.isAfter(graceEnd);                                           // Check if employee is late beyond grace period
-            if (logIn.isAfter(workStart) && logIn.isBefore(graceEnd)) logIn = workStart;        // Adjust login within grace period
+    private static WeeklyAttendance aggregateAttendance(AttendanceShards attendance, AttendanceColumns shard, PayrollMetrics metrics) {
+        WeeklyAttendance weeklyAttendance = new WeeklyAttendance(shard.rowCount() / 5 + 1);   // Weekly totals of the shard's employees
+        attendance.forEachRecord(shard, (employeeId, epochDay, logIn, logOut) ->
+                processSingleAttendanceRecord(employeeId, epochDay, logIn, logOut, weeklyAttendance, metrics));  // Process each record in the period
+        return weeklyAttendance;
+    }
 
-            LocalTime adjustedLogOut = logOut.isAfter(workEnd) ? workEnd : logOut;              // Cap regular hours at workEnd
-            Duration workDuration = Duration.between(logIn, adjustedLogOut).minus(breakTime);   // Calculate regular work hours minus break
-            workDuration = workDuration.isNegative() ? Duration.ZERO : workDuration;            // Ensure no negative duration
+    /**
+     * Loads the parsed attendance records of the pay period. Each attendance CSV file is memory-mapped
+     * and parsed in parallel the first time it is read, and the result is saved to a columnar cache file
+     * that is reused for as long as the CSV file is unchanged. Sharded attendance is loaded one file per
+     * task, and files whose name dates them outside the pay period are not read at all.
+     *
+     * @param attendanceFilePath Attendance CSV file, directory of CSV files, or glob pattern
+     * @param payPeriod Attendance dates to load
+     * @param workerPool Pool the attendance files are parsed on if they are not cached yet
+     * @param metrics Metrics of the run; its ingest counts are set
+     * @return The attendance records, or null if the attendance files cannot be read
+     */
+    private static AttendanceShards loadAttendance(String attendanceFilePath, PayPeriod payPeriod, ForkJoinPool workerPool,
+                                                   PayrollMetrics metrics) {
+        PayrollMetrics.Timer timer = metrics.time(PayrollMetrics.Stage.INGEST);
+        try {
+            AttendanceShards attendance = AttendanceSource.load(attendanceFilePath, payPeriod, workerPool,
+                    rowOffset -> System.err.println("Error parsing attendance record at byte " + rowOffset));   // Parsing error
+            metrics.attendanceShards = attendance.shards().size();
+            metrics.skippedShards = attendance.skippedShardCount();
+            metrics.attendanceRows = attendance.rowCount();
+            metrics.attendanceCached = attendance.isCached();
+            metrics.skippedRows = attendance.skippedRowCount();
+            metrics.malformedRows = attendance.malformedRowCount();
+            return attendance;
+        } catch (IOException e) {
+            System.out.println("Error reading attendance file: " + e.getMessage());         // Display error message
+            e.printStackTrace();               // Print stack trace for debugging
+            return null;
+        } finally {
+            timer.stop();
+        }
+    }
 
-            Duration overtimeDuration = (!isLate && logOut.isAfter(workEnd)) ? Duration.between(workEnd, logOut) : Duration.ZERO;      // Calculate overtime if not late
+    /**
+     * Processes a single attendance record to calculate regular work and overtime durations
+     * for a day, then adds them to the employee's week. Times are minutes of the day. The shift,
+     * grace period, break, work days, holidays and overtime rules are those of the employee's
+     * work schedule (see {@link WorkSchedules}).
+     *
+     * @param employeeId Employee's ID number
+     * @param epochDay Date of the record (the day the shift starts) as days since 1970-01-01
+     * @param logIn Log in time as minute of the day
+     * @param logOut Log out time as minute of the day
+     * @param weeklyAttendance Weekly totals to update
+     * @param metrics Metrics of the run; its day off, holiday, invalid and late record counts are updated
+     */
+    static void processSingleAttendanceRecord(int employeeId, int epochDay, int logIn, int logOut,
+                                              WeeklyAttendance weeklyAttendance, PayrollMetrics metrics) {
+        processSingleAttendanceRecord(WORK_SCHEDULES, employeeId, epochDay, logIn, logOut, weeklyAttendance, metrics);
+    }
 
-            LocalDate weekStart = date.with(DayOfWeek.MONDAY);                                  // Determine the Monday of the week
-            weeklyRecords.putIfAbsent(weekStart, new Duration[]{Duration.ZERO, Duration.ZERO}); // Initialize week if not present
-            Duration[] durations = weeklyRecords.get(weekStart);                                // Get existing durations
-            durations[0] = durations[0].plus(workDuration);                                     // Add regular hours
-            durations[1] = durations[1].plus(overtimeDuration);                                 // Add overtime hours
-        } catch (DateTimeParseException e) {
-            System.out.println("Error parsing attendance date/time for " + attendanceRecord[0] + " on " + dateStr);     // Parsing error
+    /**
+     * Processes a single attendance record under the given work schedules instead of those
+     * loaded at startup (see {@link #processSingleAttendanceRecord(int, int, int, int, WeeklyAttendance, PayrollMetrics)}).
+     *
+     * @param schedules Work schedules to apply
+     */
+    static void processSingleAttendanceRecord(WorkSchedules schedules, int employeeId, int epochDay, int logIn, int logOut,
+                                              WeeklyAttendance weeklyAttendance, PayrollMetrics metrics) {
+        int schedule = schedules.scheduleOf(employeeId);                                    // Employee's work schedule
+        int dayOfWeek = Math.floorMod(epochDay + 3, 7);                                    // 0 = Monday ... 6 = Sunday (epoch day 0 is a Thursday)
+        if (!schedules.isWorkDay(schedule, dayOfWeek)) {                                   // Skip days off
+            metrics.weekendRecords++;
+            return;
         }
+        if (schedules.isHoliday(schedule, epochDay)) {                                     // Holidays are paid as regular work
+            metrics.holidayRecords++;
+            if (schedules.isHolidayDayOff(schedule, epochDay)) return;                     // Unless declared a day off
+        }
+
+        int dayBoundary = schedules.dayBoundaryMinute(schedule);                           // 0 unless the shift runs overnight
+        if (logIn < dayBoundary) logIn += WorkSchedules.MINUTES_PER_DAY;                   // Punched after midnight
+        if (logOut < dayBoundary) logOut += WorkSchedules.MINUTES_PER_DAY;
+        if (logOut < logIn) {
+            metrics.invalidRecords++;
+            System.err.println("Error: Invalid time record for " + employeeId + " on " + LocalDate.ofEpochDay(epochDay).format(DATE_FORMATTER));     // Invalid time range
+            return;
+        }
+
+        int workStart = schedules.startMinute(schedule);                                   // Shift start
+        int graceEnd = schedules.graceEndMinute(schedule);                                 // Grace period end
+        int workEnd = schedules.endMinute(schedule);                                       // Shift end
+        if (logIn > graceEnd) metrics.lateRecords++;                                        // Late beyond grace period
+        if (logIn > workStart && logIn < graceEnd) logIn = workStart;                       // Adjust login within grace period
+
+        int adjustedLogOut = Math.min(logOut, workEnd);                                     // Cap regular hours at workEnd
+        int workMinutes = Math.max(adjustedLogOut - logIn - schedules.breakMinutes(schedule), 0);  // Regular work minus break, never negative
+        int overtimeMinutes = (logIn <= schedules.overtimeCutoffMinute(schedule) && logOut > workEnd) ? logOut - workEnd : 0;   // Overtime unless forfeited by being late
+
+        weeklyAttendance.add(employeeId, epochDay - dayOfWeek, workMinutes, overtimeMinutes);  // Add to the Monday of the week
     }
 
     /**
      * Calculates payroll components (base salary, overtime pay, deductions, allowances)
-     * for each week and displays the summary to the user.
+     * for each week of an employee's attendance.
      *
-     * @param fullName Employee's full name
+     * @param employee Employee to calculate payroll for
      * @param weeklyRecords TreeMap of weekly work and overtime durations
-     * @param hourlyRate Employee's hourly pay rate
-     * @param riceSubsidy Monthly rice subsidy
-     * @param phoneAllowance Monthly phone allowance
-     * @param clothingAllowance Monthly clothing allowance
+     * @return One payslip per week, in week order
      */
-    private static void calculateAndDisplayPayroll(String fullName, TreeMap<LocalDate, Duration[]> weeklyRecords,
-                                                   double hourlyRate, double riceSubsidy, double phoneAllowance,
-                                                   double clothingAllowance) {
-        System.out.println("\nWeekly Salary Summary for " + fullName + ":");
-        System.out.println("-------------------------------------------------");
-
+    static List<Payslip> computePayslips(Employee employee, TreeMap<LocalDate, Duration[]> weeklyRecords) {
+        long hourlyRate = employee.hourlyRate();                                            // Hourly rate in centavos
+        int schedule = WORK_SCHEDULES.scheduleOf(employee.employeeNumber());                // Employee's work schedule
+        long overtimeRate = WORK_SCHEDULES.overtimeRate(schedule);                          // Overtime pay rate multiplier
+        int lastWorkDay = WORK_SCHEDULES.lastWorkDay(schedule);                             // Days from Monday to the last work day
+        long monthlyAllowances = employee.riceSubsidy() + employee.phoneAllowance() + employee.clothingAllowance();
+        List<Payslip> payslips = new ArrayList<>(weeklyRecords.size());
         for (Map.Entry<LocalDate, Duration[]> entry : weeklyRecords.entrySet()) {           // Iterate through each week's records
             LocalDate startOfWeek = entry.getKey();                                         // Start of the week (Monday)
-            LocalDate endOfWeek = startOfWeek.plusDays(4);                                  // End of the week (Friday, assuming 5-day work week)   
-            Duration workDuration = entry.getValue()[0];                                    // Total regular work hours
-            Duration overtimeDuration = entry.getValue()[1];                                // Total overtime hours
+            LocalDate endOfWeek = startOfWeek.plusDays(lastWorkDay);                        // End of the work week (Friday for a Mon-Fri schedule)
+            long workMinutes = entry.getValue()[0].toMinutes();                             // Total regular work minutes
+            long overtimeMinutes = entry.getValue()[1].toMinutes();                         // Total overtime minutes
 
-            // Calculate salary components
-            double baseSalary = workDuration.toMinutes() / 60.0 * hourlyRate;                               // Convert minutes to hours and multiply by rate
-            double overtimePay = overtimeDuration.toMinutes() / 60.0 * hourlyRate * OVERTIME_RATE;          // Overtime pay with multiplier
-            double grossSalary = baseSalary + overtimePay;                                                  // Total salary before deductions
-            double totalAllowances = (riceSubsidy + phoneAllowance + clothingAllowance) / WEEKLY_PAYMENTS;  // Weekly portion of monthly allowances
+            // Calculate salary components (all amounts in centavos)
+            long baseSalary = Money.multiply(hourlyRate, workMinutes, 60, BASE_PAY_ROUNDING);                   // Minutes times the hourly rate
+            long overtimePay = Money.multiply(hourlyRate * overtimeMinutes, overtimeRate, 60 * Money.RATE_UNIT, OVERTIME_ROUNDING);  // Overtime pay with multiplier
+            long grossSalary = baseSalary + overtimePay;                                                        // Total salary before deductions
+            long totalAllowances = Money.divide(monthlyAllowances, WEEKLY_PAYMENTS, ALLOWANCE_ROUNDING);        // Weekly portion of monthly allowances
 
             // Calculate statutory deductions
-            double sssContribution = calculateSSSContribution(grossSalary);                             // SSS contribution
-            double philHealthContribution = calculatePhilHealthContribution(grossSalary);               // PhilHealth contribution
-            double pagIbigContribution = calculatePagIbigContribution(grossSalary);                     // Pag-IBIG contribution
-            double withholdingTax = calculateWithholdingTax(grossSalary);                               // Withholding tax
-            double totalDeductions = sssContribution + philHealthContribution + pagIbigContribution;    // Sum of deductions
+            DeductionTables deductionTables = deductionTablesFor(startOfWeek);                                  // Tables in effect for the week
+            long sssContribution = calculateSSSContribution(grossSalary, deductionTables);                      // SSS contribution
+            long philHealthContribution = calculatePhilHealthContribution(grossSalary, deductionTables);        // PhilHealth contribution
+            long pagIbigContribution = calculatePagIbigContribution(grossSalary, deductionTables);              // Pag-IBIG contribution
+            long withholdingTax = calculateWithholdingTax(grossSalary, deductionTables);                        // Withholding tax
+            long totalDeductions = sssContribution + philHealthContribution + pagIbigContribution;      // Sum of deductions
 
-            double netSalary = grossSalary - totalDeductions - withholdingTax;                          // Salary after deductions and tax
-            double finalPay = netSalary + totalAllowances;                                              // Final pay including allowances
+            long netSalary = grossSalary - totalDeductions - withholdingTax;                            // Salary after deductions and tax
+            long finalPay = netSalary + totalAllowances;                                                // Final pay including allowances
 
-            // Display the payroll details for the week
-            printPayrollDetails(startOfWeek, endOfWeek, workDuration, overtimeDuration, baseSalary, overtimePay,
-                    grossSalary, sssContribution, philHealthContribution, pagIbigContribution, totalDeductions,
-                    withholdingTax, totalAllowances, finalPay);
+            payslips.add(new Payslip(employee.employeeNumber(), employee.fullName(), startOfWeek, endOfWeek,
+                    workMinutes, overtimeMinutes, baseSalary, overtimePay, grossSalary,
+                    sssContribution, philHealthContribution, pagIbigContribution, totalDeductions,
+                    withholdingTax, totalAllowances, finalPay));
         }
+        return payslips;
     }
 
     /**
      * Calculates the SSS (Social Security System) contribution based on the weekly gross salary.
-     * Uses a predefined contribution table to determine the amount, which is then converted to a weekly value.
+     * Looks up the salary bracket in the SSS contribution table; salaries above the highest
+     * bracket use the maximum contribution.
      *
-     * @param grossSalary Weekly gross salary (base + overtime)
-     * @return Weekly SSS contribution amount
+     * @param grossSalary Weekly gross salary (base + overtime) in centavos
+     * @param deductionTables Deduction tables in effect for the week
+     * @return Weekly SSS contribution amount in centavos
      */
-    private static double calculateSSSContribution(double grossSalary) {
-        // Inner class to represent salary brackets and corresponding SSS contributions
-        class SalaryContribution {
-            double salaryLimit;     // Upper limit of the salary bracket (weekly)
-            double contribution;    // Monthly SSS contribution for the bracket
-
-            SalaryContribution(double salaryLimit, double contribution) {
-                this.salaryLimit = salaryLimit;
-                this.contribution = contribution;
-            }
-        }
-        // Initialize SSS contribution table with monthly salary limits divided by 4 for weekly comparison
-        ArrayList<SalaryContribution> sssTable = new ArrayList<>();
-        sssTable.add(new SalaryContribution(3250.0 / 4, 135.00));
-        sssTable.add(new SalaryContribution(3750.0 / 4, 157.50));
-        sssTable.add(new SalaryContribution(4250.0 / 4, 180.00));
-        sssTable.add(new SalaryContribution(4750.0 / 4, 202.50));
-        sssTable.add(new SalaryContribution(5250.0 / 4, 225.00));
-        sssTable.add(new SalaryContribution(5750.0 / 4, 247.50));
-        sssTable.add(new SalaryContribution(6250.0 / 4, 270.00));
-        sssTable.add(new SalaryContribution(6750.0 / 4, 292.50));
-        sssTable.add(new SalaryContribution(7250.0 / 4, 315.00));
-        sssTable.add(new SalaryContribution(7750.0 / 4, 337.50));
-        sssTable.add(new SalaryContribution(8250.0 / 4, 360.00));
-        sssTable.add(new SalaryContribution(8750.0 / 4, 382.50));
-        sssTable.add(new SalaryContribution(9250.0 / 4, 405.00));
-        sssTable.add(new SalaryContribution(9750.0 / 4, 427.50));
-        sssTable.add(new SalaryContribution(10250.0 / 4, 450.00));
-        sssTable.add(new SalaryContribution(10750.0 / 4, 472.50));
-        sssTable.add(new SalaryContribution(11250.0 / 4, 495.00));
-        sssTable.add(new SalaryContribution(11750.0 / 4, 517.50));
-        sssTable.add(new SalaryContribution(12250.0 / 4, 540.00));
-        sssTable.add(new SalaryContribution(12750.0 / 4, 562.50));
-        sssTable.add(new SalaryContribution(13250.0 / 4, 585.00));
-        sssTable.add(new SalaryContribution(13750.0 / 4, 607.50));
-        sssTable.add(new SalaryContribution(14250.0 / 4, 630.00));
-        sssTable.add(new SalaryContribution(14750.0 / 4, 652.50));
-        sssTable.add(new SalaryContribution(15250.0 / 4, 675.00));
-        sssTable.add(new SalaryContribution(15750.0 / 4, 697.50));
-        sssTable.add(new SalaryContribution(16250.0 / 4, 720.00));
-        sssTable.add(new SalaryContribution(16750.0 / 4, 742.50));
-        sssTable.add(new SalaryContribution(17250.0 / 4, 765.00));
-        sssTable.add(new SalaryContribution(17750.0 / 4, 787.50));
-        sssTable.add(new SalaryContribution(18250.0 / 4, 810.00));
-        sssTable.add(new SalaryContribution(18750.0 / 4, 832.50));
-        sssTable.add(new SalaryContribution(19250.0 / 4, 855.00));
-        sssTable.add(new SalaryContribution(19750.0 / 4, 877.50));
-        sssTable.add(new SalaryContribution(20250.0 / 4, 900.00));
-        sssTable.add(new SalaryContribution(20750.0 / 4, 922.50));
-        sssTable.add(new SalaryContribution(21250.0 / 4, 945.00));
-        sssTable.add(new SalaryContribution(21750.0 / 4, 967.50));
-        sssTable.add(new SalaryContribution(22250.0 / 4, 990.00));
-        sssTable.add(new SalaryContribution(22750.0 / 4, 1012.50));
-        sssTable.add(new SalaryContribution(23250.0 / 4, 1035.00));
-        sssTable.add(new SalaryContribution(23750.0 / 4, 1057.50));
-        sssTable.add(new SalaryContribution(24250.0 / 4, 1080.00));
-        sssTable.add(new SalaryContribution(24750.0 / 4, 1102.50));
-
-        //Initialize the SSS contribution to a default value of 0.0
-        double sssContribution = 0.0;                                      
-        for (SalaryContribution sssEntry : sssTable) {                      // Iterate through the SSS contribution table to find the appropriate contribution bracket
-            if (grossSalary <= sssEntry.salaryLimit) {                      // Check if the employee's gross salary falls within the current bracket's salary limit
-                 // If the salary fits within this bracket, calculate the weekly contribution
-                 // by dividing the monthly contribution by the number of weekly payments (e.g., 4)
-                sssContribution = sssEntry.contribution / WEEKLY_PAYMENTS;  
-                break;  // Exit loop once contribution is found
-            }
-        }
-        // If salary exceeds highest bracket, use the maximum contribution (converted to weekly)
-        // Convert the maximum monthly contribution (1125.00) to a weekly value
-        return (sssContribution == 0.0) ? 1125.00 / WEEKLY_PAYMENTS : sssContribution;
+    private static long calculateSSSContribution(long grossSalary, DeductionTables deductionTables) {
+        return deductionTables.sssContribution(grossSalary, DEDUCTION_ROUNDING);
     }
 
     /**
@@ -389,82 +870,74 @@ public class MotorPH {
      * Applies a tiered system: minimum contribution for low salaries, percentage-based
      * for mid-range, and a maximum cap for high salaries.
      *
-     * @param grossSalary Weekly gross salary
-     * @return Weekly PhilHealth contribution (employee's share)
+     * @param grossSalary Weekly gross salary in centavos
+     * @param deductionTables Deduction tables in effect for the week
+     * @return Weekly PhilHealth contribution (employee's share) in centavos
      */
-    private static double calculatePhilHealthContribution(double grossSalary) {
-        double monthlyPremium = ((grossSalary * 0.03) / 2) / (4);                           // 3% of salary, split employer/employee, then monthly to weekly
-        if (grossSalary <= 10000 / 4) return 300 / 2 / WEEKLY_PAYMENTS;                     // Minimum contribution for salaries up to 2500 weekly
-        else if (grossSalary <= 59999.99 / 4) return monthlyPremium / 2 / WEEKLY_PAYMENTS;  // Calculated contribution up to ~15000 weekly
-        else return 1800 / 2 / WEEKLY_PAYMENTS;                                             // Maximum contribution for higher salaries, weekly
+    private static long calculatePhilHealthContribution(long grossSalary, DeductionTables deductionTables) {
+        return deductionTables.philHealthContribution(grossSalary, DEDUCTION_ROUNDING);
     }
 
     /**
      * Calculates the Pag-ibig contribution based on the weekly gross salary.
      * Uses a tiered rate (1% or 2%) with a monthly cap of 100, converted to weekly.
      *
-     * @param grossSalary Weekly gross salary
-     * @return Weekly Pag-ibig contribution
+     * @param grossSalary Weekly gross salary in centavos
+     * @param deductionTables Deduction tables in effect for the week
+     * @return Weekly Pag-ibig contribution in centavos
      */
-    private static double calculatePagIbigContribution(double grossSalary) {
-        double contribution = (grossSalary <= 1500) ? grossSalary * 0.01 : grossSalary * 0.02;  // 1% if <= 1500, else 2%
-        return Math.min(contribution, 100.00 / WEEKLY_PAYMENTS);                                // Cap at 100 monthly, converted to weekly
+    private static long calculatePagIbigContribution(long grossSalary, DeductionTables deductionTables) {
+        return deductionTables.pagIbigContribution(grossSalary, DEDUCTION_ROUNDING);
     }
 
     /**
      * Calculates the withholding tax based on the weekly gross salary using tax brackets.
      * Note: This implementation may not align with the latest tax tables; consider updating
-     * based on current regulations.
+     * the deduction table file based on current regulations.
      *
-     * @param grossSalary Weekly gross salary
-     * @return Weekly withholding tax amount
+     * @param grossSalary Weekly gross salary in centavos
+     * @param deductionTables Deduction tables in effect for the week
+     * @return Weekly withholding tax amount in centavos
      */
-    private static double calculateWithholdingTax(double grossSalary) {
-        if (grossSalary <= 20832 / 4) return 0.0;                                                       // No tax for weekly salary <= 5208
-        else if (grossSalary <= 33333 / 4) return ((grossSalary - 20833 / 4) * 0.20);                   // 20% over 5208 up to 8332.5
-        else if (grossSalary <= 66667 / 4) return (2500 / 4) + ((grossSalary - 33333 / 4) * 0.25);      // 625 + 25% over 8332.5 up to 16666.75
-        else if (grossSalary <= 166667 / 4) return (10833 / 4) + ((grossSalary - 66667 / 4) * 0.30);    // 2708.25 + 30% over 16666.75 up to 41666.75
-        else if (grossSalary <= 666667) return (40833.33 / 4) + ((grossSalary - 166667 / 4) * 0.32);    // 10208.33 + 32% over 41666.75 up to 166666.75
-        else return (208333.33 / 4) + ((grossSalary - 166667) * 0.35);                                  // 52083.33 + 35% over 166666.75
+    private static long calculateWithholdingTax(long grossSalary, DeductionTables deductionTables) {
+        return deductionTables.withholdingTax(grossSalary, TAX_ROUNDING);
     }
 
     /**
-     * Prints a detailed payroll summary for a specific week, including hours worked,
-     * salary components, deductions, allowances, and net pay.
+     * Finds the deduction tables in effect for a week. Weeks before the earliest
+     * table version use the earliest version.
      *
      * @param startOfWeek Start date of the week
-     * @param endOfWeek End date of the week
-     * @param workDuration Total regular work hours for the week
-     * @param overtimeDuration Total overtime hours for the week
-     * @param baseSalary Base pay for regular hours
-     * @param overtimePay Additional pay for overtime hours
-     * @param grossSalary Total salary before deductions
-     * @param sssContribution SSS deduction
-     * @param philHealthContribution PhilHealth deduction
-     * @param pagIbigContribution Pag-IBIG deduction
-     * @param totalDeductions Sum of all statutory deductions
-     * @param withholdingTax Tax withheld
-     * @param totalAllowances Weekly allowances
-     * @param finalPay Net pay after all calculations
+     * @return Deduction tables that apply to the week
+     */
+    static DeductionTables deductionTablesFor(LocalDate startOfWeek) {
+        Map.Entry<LocalDate, DeductionTables> entry = DEDUCTION_TABLES.floorEntry(startOfWeek);
+        return (entry != null ? entry : DEDUCTION_TABLES.firstEntry()).getValue();
+    }
+
+    /**
+     * Loads the deduction tables from the deduction table file once at startup.
+     *
+     * @return Sets of deduction tables keyed by the date they take effect
      */
-    private static void printPayrollDetails(LocalDate startOfWeek, LocalDate endOfWeek, Duration workDuration,
-                                            Duration overtimeDuration, double baseSalary, double overtimePay,
-                                            double grossSalary, double sssContribution, double philHealthContribution,
-                                            double pagIbigContribution, double totalDeductions, double withholdingTax,
-                                            double totalAllowances, double finalPay) {
-        System.out.println("Week Period             : " + startOfWeek + " - " + endOfWeek);
-        System.out.println("Total Hours Worked      : " + workDuration.toHours() + "h " + workDuration.toMinutesPart() + "m");
-        System.out.println("Total Overtime          : " + overtimeDuration.toHours() + "h " + overtimeDuration.toMinutesPart() + "m");
-        System.out.println("Base Salary             : PHP " + String.format("%.2f", baseSalary));
-        System.out.println("Overtime Pay            : PHP " + String.format("%.2f", overtimePay));
-        System.out.println("Gross Salary            : PHP " + String.format("%.2f", grossSalary));
-        System.out.println("SSS Contribution        : PHP " + String.format("-%.2f", sssContribution));
-        System.out.println("PhilHealth Contribution : PHP " + String.format("-%.2f", philHealthContribution));
-        System.out.println("Pag-Ibig Contribution   : PHP " + String.format("-%.2f", pagIbigContribution));
-        System.out.println("Total Deductions        : PHP " + String.format("-%.2f", totalDeductions));
-        System.out.println("Withholding Tax         : PHP " + String.format("-%.2f", withholdingTax));
-        System.out.println("Allowances              : PHP " + String.format("%.2f", totalAllowances));
-        System.out.println("\nNet Salary              : PHP " + String.format("%.2f", finalPay));
-        System.out.println("--------------------------------------------------");
+    private static NavigableMap<LocalDate, DeductionTables> loadDeductionTables() {
+        try {
+            return DeductionTables.load(DEDUCTION_TABLE_FILE_PATH);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading deduction table file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Loads and compiles the work schedules and holiday calendars once at startup.
+     *
+     * @return The compiled work schedules
+     */
+    private static WorkSchedules loadWorkSchedules() {
+        try {
+            return WorkSchedules.load(WORK_SCHEDULE_FILE_PATH, HOLIDAY_FILE_PATH);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading work schedule file: " + e.getMessage(), e);
+        }
     }
 }
@@ -0,0 +1,92 @@
+/**
+ * This record represents the pay period a payroll run covers: an inclusive range of dates,
+ * either end of which may be left open. Attendance records outside the period are ignored.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.time.*;                                     // For the first and last day of the period
+
+/**
+ * @param start First day of the period, or null for no lower bound
+ * @param end Last day of the period, or null for no upper bound
+ */
+record PayPeriod(LocalDate start, LocalDate end) {
+
+    static final PayPeriod ALL = new PayPeriod(null, null);     // Every date
+
+    PayPeriod {
+        if (start != null && end != null && end.isBefore(start)) {
+            throw new IllegalArgumentException("Pay period ends (" + end + ") before it starts (" + start + ")");
+        }
+    }
+
+    /**
+     * Parses a pay period from ISO dates (yyyy-MM-dd).
+     *
+     * @param start First day of the period, or null or blank for no lower bound
+     * @param end Last day of the period, or null or blank for no upper bound
+     * @return The pay period
+     * @throws java.time.format.DateTimeParseException If a date is not a valid ISO date
+     * @throws IllegalArgumentException If the period ends before it starts
+     */
+    static PayPeriod parse(String start, String end) {
+        return new PayPeriod(start == null || start.isBlank() ? null : LocalDate.parse(start.trim()),
+                end == null || end.isBlank() ? null : LocalDate.parse(end.trim()));
+    }
+
+    /**
+     * @return True if the period has no bounds
+     */
+    boolean isAll() {
+        return start == null && end == null;
+    }
+
+    /**
+     * @return True if the period starts on a Monday and ends on a Sunday, so it is made of whole weeks (open ends count as whole)
+     */
+    boolean isWholeWeeks() {
+        return (start == null || start.getDayOfWeek() == DayOfWeek.MONDAY) && (end == null || end.getDayOfWeek() == DayOfWeek.SUNDAY);
+    }
+
+    /**
+     * @param epochDay Date as days since 1970-01-01
+     * @return True if the date falls within the period
+     */
+    boolean includes(int epochDay) {
+        return (start == null || epochDay >= start.toEpochDay()) && (end == null || epochDay <= end.toEpochDay());
+    }
+
+    /**
+     * @param date Date to check
+     * @return True if the date falls within the period
+     */
+    boolean includes(LocalDate date) {
+        return (start == null || !date.isBefore(start)) && (end == null || !date.isAfter(end));
+    }
+
+    /**
+     * @param first First date of a range
+     * @param last Last date of the range
+     * @return True if any date of the range falls within the period
+     */
+    boolean overlaps(LocalDate first, LocalDate last) {
+        return (end == null || !first.isAfter(end)) && (start == null || !last.isBefore(start));
+    }
+
+    /**
+     * Wraps a record handler so that it only receives records dated within the period.
+     *
+     * @param handler Handler to pass the records within the period to
+     * @return The filtering handler, or the handler itself if the period has no bounds
+     */
+    AttendanceParser.RecordHandler filter(AttendanceParser.RecordHandler handler) {
+        if (isAll()) return handler;
+        long first = start == null ? Long.MIN_VALUE : start.toEpochDay();
+        long last = end == null ? Long.MAX_VALUE : end.toEpochDay();
+        return (employeeId, epochDay, logInMinute, logOutMinute) -> {
+            if (epochDay >= first && epochDay <= last) handler.onRecord(employeeId, epochDay, logInMinute, logOutMinute);
+        };
+    }
+}
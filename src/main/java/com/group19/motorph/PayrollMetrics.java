@@ -0,0 +1,244 @@
+/**
+ * This class collects the metrics of one payroll run: how long each stage took (ingest, aggregate,
+ * compute, render, or merge for an out-of-core run), how many attendance rows were ingested, and how many records were skipped,
+ * malformed, on a day off or holiday, invalid or late. Stages and the finished run are also emitted as
+ * JDK Flight Recorder events, so a production run can be profiled by starting it with
+ * {@code -XX:StartFlightRecording} instead of attaching a profiler. The summary is written as one
+ * line of JSON to the file set by the {@code motorph.metrics} system property ({@code -} for the error stream).
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For writing the summary
+import java.nio.charset.StandardCharsets;               // For encoding the summary
+import java.nio.file.*;                                 // For the summary file
+import java.util.*;                                     // For Locale
+import jdk.jfr.*;                                       // For Flight Recorder events
+
+final class PayrollMetrics {
+
+    private static final String METRICS_PATH = System.getProperty("motorph.metrics");    // Summary file, "-" for the error stream, or null for none
+
+    /**
+     * Stages of a payroll run, in the order they run.
+     */
+    enum Stage {
+        INGEST,         // Reading the attendance file or its cache (out of core: also sorting and spilling runs)
+        AGGREGATE,      // Applying the attendance rules and adding up weekly totals
+        COMPUTE,        // Computing payslips
+        RENDER,         // Writing payslips
+        MERGE           // Out of core only: merging sorted runs, which aggregates, computes and writes each employee in turn
+    }
+
+    private final String mode;                                      // Which kind of run this is, e.g. "all-employees"
+    private final long startNanos = System.nanoTime();
+    private final long[] stageNanos = new long[Stage.values().length];
+
+    // Counters updated while the run is in progress; attendance rules run on a single thread
+    long attendanceShards;      // Attendance files read
+    long skippedShards;         // Attendance files skipped because their name dates them outside the pay period
+    long attendanceRows;        // Attendance records ingested
+    long skippedRows;           // Rows skipped because the log in or log out time is missing
+    long malformedRows;         // Rows that could not be parsed
+    long weekendRecords;        // Records on a day off of the employee's work schedule, which are not paid
+    long holidayRecords;        // Records on a holiday of the employee's work schedule, paid as regular work unless a day off
+    long invalidRecords;        // Records whose log out is before their log in
+    long lateRecords;           // Records logged in after the grace period
+    boolean attendanceCached;   // Whether attendance was read from the cache instead of the CSV file
+    long sortRuns;              // Sorted runs spilled to disk by an out-of-core run
+    long spilledBytes;          // Bytes written to run files by an out-of-core run
+    long employees;             // Employees payslips were computed for
+    long payslips;              // Weekly payslips computed
+
+    /**
+     * @param mode Which kind of run this is, e.g. "all-employees"
+     */
+    PayrollMetrics(String mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Starts timing a stage. Stop the returned timer when the stage is done, in a finally block.
+     *
+     * @param stage Stage to time
+     * @return Timer that records the stage's duration and Flight Recorder event when stopped
+     */
+    Timer time(Stage stage) {
+        return new Timer(stage);
+    }
+
+    /**
+     * @param stage Stage of the run
+     * @return Time spent in the stage in nanoseconds
+     */
+    long stageNanos(Stage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    /**
+     * Times one stage; see {@link #time}.
+     */
+    final class Timer {
+        private final Stage stage;
+        private final long start = System.nanoTime();
+        private final StageEvent event = new StageEvent();
+
+        private Timer(Stage stage) {
+            this.stage = stage;
+            event.begin();
+        }
+
+        void stop() {
+            stageNanos[stage.ordinal()] += System.nanoTime() - start;
+            event.end();
+            if (event.shouldCommit()) {
+                event.mode = mode;
+                event.stage = stage.name().toLowerCase(Locale.ROOT);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Adds the day off, holiday, invalid and late record counts of part of the run, e.g. one attendance shard.
+     *
+     * @param part Metrics the attendance rules of the part were counted in
+     */
+    void addRecordCounts(PayrollMetrics part) {
+        weekendRecords += part.weekendRecords;
+        holidayRecords += part.holidayRecords;
+        invalidRecords += part.invalidRecords;
+        lateRecords += part.lateRecords;
+    }
+
+    /**
+     * Finishes the run: emits the run's Flight Recorder event and writes the summary if one was requested.
+     */
+    void finish() {
+        long totalNanos = System.nanoTime() - startNanos;
+        RunEvent event = new RunEvent();
+        if (event.isEnabled()) {
+            event.mode = mode;
+            event.durationMillis = totalNanos / 1_000_000;
+            event.attendanceShards = attendanceShards;
+            event.skippedShards = skippedShards;
+            event.attendanceRows = attendanceRows;
+            event.skippedRows = skippedRows;
+            event.malformedRows = malformedRows;
+            event.weekendRecords = weekendRecords;
+            event.holidayRecords = holidayRecords;
+            event.invalidRecords = invalidRecords;
+            event.lateRecords = lateRecords;
+            event.sortRuns = sortRuns;
+            event.spilledBytes = spilledBytes;
+            event.employees = employees;
+            event.payslips = payslips;
+            event.commit();
+        }
+        if (METRICS_PATH == null) return;
+        String summary = summary(totalNanos);
+        try {
+            if (METRICS_PATH.equals("-")) System.err.println(summary);
+            else Files.writeString(Path.of(METRICS_PATH), summary + "\n", StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.println("Error writing payroll metrics: " + e.getMessage());        // Display error message
+        }
+    }
+
+    /**
+     * @return The run's metrics as one line of JSON
+     */
+    String summary(long totalNanos) {
+        long ingestNanos = stageNanos(Stage.INGEST);
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\"mode\":\"").append(mode).append('"')
+                .append(",\"attendanceShards\":").append(attendanceShards)
+                .append(",\"skippedShards\":").append(skippedShards)
+                .append(",\"attendanceRows\":").append(attendanceRows)
+                .append(",\"attendanceCached\":").append(attendanceCached)
+                .append(",\"skippedRows\":").append(skippedRows)
+                .append(",\"malformedRows\":").append(malformedRows)
+                .append(",\"weekendRecords\":").append(weekendRecords)
+                .append(",\"holidayRecords\":").append(holidayRecords)
+                .append(",\"invalidRecords\":").append(invalidRecords)
+                .append(",\"lateRecords\":").append(lateRecords)
+                .append(",\"sortRuns\":").append(sortRuns)
+                .append(",\"spilledBytes\":").append(spilledBytes)
+                .append(",\"employees\":").append(employees)
+                .append(",\"payslips\":").append(payslips)
+                .append(",\"rowsPerSecond\":").append(ingestNanos == 0 ? 0 : Math.round(attendanceRows * 1e9 / ingestNanos));
+        for (Stage stage : Stage.values()) {
+            json.append(",\"").append(stage.name().toLowerCase(Locale.ROOT)).append("Millis\":")
+                    .append(String.format(Locale.ROOT, "%.3f", stageNanos(stage) / 1e6));
+        }
+        return json.append(",\"totalMillis\":").append(String.format(Locale.ROOT, "%.3f", totalNanos / 1e6)).append('}').toString();
+    }
+
+    @Name("com.group19.motorph.PayrollStage")
+    @Label("Payroll Stage")
+    @Category({"MotorPH", "Payroll"})
+    @Description("One stage of a payroll run")
+    @StackTrace(false)
+    static final class StageEvent extends Event {
+        @Label("Mode")
+        String mode;
+
+        @Label("Stage")
+        String stage;
+    }
+
+    @Name("com.group19.motorph.PayrollRun")
+    @Label("Payroll Run")
+    @Category({"MotorPH", "Payroll"})
+    @Description("Counts of a finished payroll run")
+    @StackTrace(false)
+    static final class RunEvent extends Event {
+        @Label("Mode")
+        String mode;
+
+        @Label("Duration")
+        @Timespan(Timespan.MILLISECONDS)
+        long durationMillis;
+
+        @Label("Attendance Shards")
+        long attendanceShards;
+
+        @Label("Skipped Shards")
+        long skippedShards;
+
+        @Label("Attendance Rows")
+        long attendanceRows;
+
+        @Label("Skipped Rows")
+        long skippedRows;
+
+        @Label("Malformed Rows")
+        long malformedRows;
+
+        @Label("Weekend Records")
+        long weekendRecords;
+
+        @Label("Holiday Records")
+        long holidayRecords;
+
+        @Label("Invalid Records")
+        long invalidRecords;
+
+        @Label("Late Records")
+        long lateRecords;
+
+        @Label("Sort Runs")
+        long sortRuns;
+
+        @Label("Spilled Bytes")
+        @DataAmount
+        long spilledBytes;
+
+        @Label("Employees")
+        long employees;
+
+        @Label("Payslips")
+        long payslips;
+    }
+}
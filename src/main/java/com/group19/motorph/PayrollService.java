@@ -0,0 +1,323 @@
+/**
+ * This class runs the MotorPH payroll system as a long-running local HTTP service.
+ * Employee and attendance data are loaded once and kept in memory, with the attendance aggregated
+ * into a week-bucketed index so a pay period query only reads the weeks it asks for. Payslip requests are answered
+ * as JSON on virtual threads, and the data is reloaded in the background whenever one of the
+ * source CSV files is edited, or an attendance shard is added or removed.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import com.sun.net.httpserver.*;                        // For the built-in HTTP server
+import java.io.*;                                       // For file input/output operations
+import java.net.*;                                      // For binding the server to a local port
+import java.nio.charset.StandardCharsets;               // For encoding responses
+import java.nio.file.*;                                 // For checking source file versions
+import java.time.*;                                     // For week start dates and durations
+import java.util.*;                                     // For collections like List and TreeMap
+import java.util.concurrent.*;                          // For virtual threads and the reload schedule
+
+final class PayrollService {
+
+    private static final long RELOAD_CHECK_SECONDS = 2;    // How often the source CSV files are checked for edits
+
+    /**
+     * Size and last-modified time of a source file, used to detect edits.
+     */
+    private record FileVersion(long size, long modified) {
+        static FileVersion of(String filePath) throws IOException {
+            return of(Path.of(filePath));
+        }
+
+        static FileVersion of(Path path) throws IOException {
+            return new FileVersion(Files.size(path), Files.getLastModifiedTime(path).toMillis());
+        }
+
+        /**
+         * @return Version of each attendance file of a location, keyed by path
+         */
+        static Map<Path, FileVersion> ofAttendance(String location) throws IOException {
+            Map<Path, FileVersion> versions = new HashMap<>();
+            for (Path shard : AttendanceSource.shardPaths(location)) versions.put(shard, of(shard));
+            return versions;
+        }
+    }
+
+    /**
+     * Data served by the service; replaced as a whole when a source file changes.
+     */
+    private record Snapshot(EmployeeRepository employees, AttendanceShards attendance, WeeklyAttendanceIndex weeks,
+                            FileVersion employeeVersion, Map<Path, FileVersion> attendanceVersion) {
+    }
+
+    private final String employeeFilePath;
+    private final String attendanceFilePath;            // Attendance CSV file, directory of CSV files, or glob pattern
+    private final PayPeriod payPeriod;                  // Attendance dates payslips are computed for
+    private final ForkJoinPool workerPool;              // Pool the attendance files are parsed on when they are reloaded
+    private final HttpServer server;
+    private final ScheduledExecutorService reloadScheduler;
+    private volatile Snapshot snapshot;
+
+    private PayrollService(String employeeFilePath, String attendanceFilePath, PayPeriod payPeriod, int port, int workers) throws IOException {
+        this.employeeFilePath = employeeFilePath;
+        this.attendanceFilePath = attendanceFilePath;
+        this.payPeriod = payPeriod;
+        this.workerPool = new ForkJoinPool(workers);
+        this.snapshot = load();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());      // One virtual thread per request
+        server.createContext("/payslips/", this::handlePayslips);
+        server.createContext("/payroll", this::handlePayroll);
+        server.createContext("/health", this::handleHealth);
+        this.reloadScheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    /**
+     * Loads the data and starts serving requests on a local port. Endpoints:
+     * {@code GET /payslips/{employeeNumber}} returns an employee's weekly payslips,
+     * {@code GET /payroll} returns the weekly payslips of every employee with attendance, or with a
+     * {@code supervisor} query parameter only those of that supervisor's direct reports, and
+     * {@code GET /health} returns the number of loaded employees, attendance records and weeks.
+     * The payslip endpoints take optional {@code from} and {@code to} query parameters (yyyy-MM-dd)
+     * that limit the payslips to the weeks of that pay period. As weekly totals cannot be split,
+     * {@code from} must be a Monday and {@code to} a Sunday.
+     *
+     * @param employeeFilePath Path to the employee data CSV file
+     * @param attendanceFilePath Attendance CSV file, directory of CSV files, or glob pattern
+     * @param payPeriod Attendance dates payslips are computed for
+     * @param port Local port to listen on
+     * @param workers Worker threads used to parse the attendance files
+     * @return The running service
+     * @throws IOException If the data cannot be loaded or the port cannot be opened
+     */
+    static PayrollService start(String employeeFilePath, String attendanceFilePath, PayPeriod payPeriod, int port, int workers) throws IOException {
+        PayrollService service = new PayrollService(employeeFilePath, attendanceFilePath, payPeriod, port, workers);
+        service.server.start();
+        service.reloadScheduler.scheduleWithFixedDelay(service::reloadIfChanged, RELOAD_CHECK_SECONDS, RELOAD_CHECK_SECONDS, TimeUnit.SECONDS);
+        return service;
+    }
+
+    /**
+     * Stops serving requests and releases the service's threads.
+     */
+    void stop() {
+        reloadScheduler.shutdownNow();
+        server.stop(0);
+        workerPool.shutdown();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    private Snapshot load() throws IOException {
+        FileVersion employeeVersion = FileVersion.of(employeeFilePath);
+        Map<Path, FileVersion> attendanceVersion = FileVersion.ofAttendance(attendanceFilePath);
+        EmployeeRepository employees = EmployeeRepository.load(employeeFilePath);
+        AttendanceShards attendance = AttendanceSource.load(attendanceFilePath, payPeriod, workerPool,
+                rowOffset -> System.err.println("Error parsing attendance record at byte " + rowOffset));   // Parsing error
+        WeeklyAttendanceIndex weeks = WeeklyAttendanceIndex.of(MotorPH.aggregateAttendance(attendance, workerPool, new PayrollMetrics("service")));
+        return new Snapshot(employees, attendance, weeks, employeeVersion, attendanceVersion);
+    }
+
+    /**
+     * Reloads the data if a source file was edited. Requests keep being served from the
+     * previous data until the new data is ready, and a failed reload keeps the previous data.
+     */
+    private void reloadIfChanged() {
+        try {
+            Snapshot current = snapshot;
+            if (current.employeeVersion().equals(FileVersion.of(employeeFilePath))
+                    && current.attendanceVersion().equals(FileVersion.ofAttendance(attendanceFilePath))) return;
+            snapshot = load();
+            System.out.println("Reloaded payroll data: " + snapshot.employees().size() + " employees, "
+                    + snapshot.attendance().rowCount() + " attendance records.");
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error reloading payroll data: " + e.getMessage());         // Keep serving the previous data
+        }
+    }
+
+    private void handlePayslips(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, error("Only GET is supported"));
+            return;
+        }
+        String employeeNumber = exchange.getRequestURI().getPath().substring("/payslips/".length());
+        if (!employeeNumber.matches("\\d{1,9}")) {
+            send(exchange, 400, error("Invalid employee number: " + employeeNumber));
+            return;
+        }
+        PayPeriod period = queryPeriod(exchange);
+        if (period == null) return;
+        Snapshot current = snapshot;
+        Employee employee = current.employees().findById(Integer.parseInt(employeeNumber));
+        if (employee == null) {
+            send(exchange, 404, error("Employee with ID " + employeeNumber + " not found."));
+            return;
+        }
+        TreeMap<LocalDate, Duration[]> weeklyRecords = current.weeks().weeklyRecordsOf(employee.employeeNumber(), period);
+        List<Payslip> payslips = MotorPH.computePayslips(employee, weeklyRecords);
+        send(exchange, 200, appendPayslipsJson(new StringBuilder(256 + payslips.size() * 512), employee, payslips).toString());
+    }
+
+    private void handlePayroll(HttpExchange exchange) throws IOException {
+        if (!acceptGet(exchange, "/payroll")) return;
+        PayPeriod period = queryPeriod(exchange);
+        if (period == null) return;
+        Snapshot current = snapshot;
+        List<Employee> employees = current.employees().all();
+        String supervisorNumber = queryParameters(exchange).get("supervisor");
+        if (supervisorNumber != null) {                 // Only the supervisor's team
+            if (!supervisorNumber.matches("\\d{1,9}")) {
+                send(exchange, 400, error("Invalid supervisor number: " + supervisorNumber));
+                return;
+            }
+            if (current.employees().findById(Integer.parseInt(supervisorNumber)) == null) {
+                send(exchange, 404, error("Employee with ID " + supervisorNumber + " not found."));
+                return;
+            }
+            employees = current.employees().findBySupervisor(Integer.parseInt(supervisorNumber));
+        }
+        Map<String, TreeMap<LocalDate, Duration[]>> weeklyRecords = current.weeks().weeklyRecords(period);    // Only the period's week buckets
+        StringBuilder json = new StringBuilder(256 + weeklyRecords.size() * 1024).append("{\"employees\":[");
+        boolean first = true;
+        for (Employee employee : employees) {
+            TreeMap<LocalDate, Duration[]> employeeWeeks = weeklyRecords.get(Integer.toString(employee.employeeNumber()));
+            if (employeeWeeks == null) continue;        // No attendance in the period
+            if (!first) json.append(',');
+            first = false;
+            appendPayslipsJson(json, employee, MotorPH.computePayslips(employee, employeeWeeks));
+        }
+        send(exchange, 200, json.append("]}").toString());
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        if (!acceptGet(exchange, "/health")) return;
+        Snapshot current = snapshot;
+        send(exchange, 200, "{\"status\":\"UP\",\"employees\":" + current.employees().size()
+                + ",\"attendanceRecords\":" + current.attendance().rowCount()
+                + ",\"weeks\":" + current.weeks().weekCount() + "}");
+    }
+
+    /**
+     * Answers with an error unless the request is a GET of exactly the endpoint's path, as the
+     * server also routes longer paths (e.g. {@code /payrollx} or {@code /payroll/x}) to it.
+     *
+     * @param path Path of the endpoint
+     * @return True if the request can be served, false if an error was sent
+     */
+    private static boolean acceptGet(HttpExchange exchange, String path) throws IOException {
+        if (!exchange.getRequestURI().getPath().equals(path)) {
+            send(exchange, 404, error("Not found: " + exchange.getRequestURI().getPath()));
+            return false;
+        }
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, error("Only GET is supported"));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the pay period from the {@code from} and {@code to} query parameters, answering with
+     * an error if they are not valid dates or the period is not made of whole weeks.
+     *
+     * @return The pay period, or null if an error was sent
+     */
+    private static PayPeriod queryPeriod(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = queryParameters(exchange);
+        PayPeriod period;
+        try {
+            period = PayPeriod.parse(parameters.get("from"), parameters.get("to"));
+        } catch (DateTimeException | IllegalArgumentException e) {
+            send(exchange, 400, error("Invalid pay period: " + e.getMessage()));
+            return null;
+        }
+        if (!period.isWholeWeeks()) {           // Weekly totals cannot be split at a day
+            send(exchange, 400, error("Invalid pay period: from must be a Monday and to a Sunday"));
+            return null;
+        }
+        return period;
+    }
+
+    /**
+     * @return The decoded query parameters of the request, keyed by name
+     */
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                String name = equals < 0 ? parameter : parameter.substring(0, equals);
+                String value = equals < 0 ? "" : URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8);
+                parameters.put(name, value);
+            }
+        }
+        return parameters;
+    }
+
+    private static StringBuilder appendPayslipsJson(StringBuilder json, Employee employee, List<Payslip> payslips) {
+        json.append("{\"employeeNumber\":").append(employee.employeeNumber())
+                .append(",\"name\":").append(quote(employee.fullName()))
+                .append(",\"birthday\":").append(quote(employee.birthday()))
+                .append(",\"payslips\":[");
+        for (int i = 0; i < payslips.size(); i++) {
+            Payslip payslip = payslips.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"weekStart\":\"").append(payslip.startOfWeek())
+                    .append("\",\"weekEnd\":\"").append(payslip.endOfWeek())
+                    .append("\",\"workMinutes\":").append(payslip.workMinutes())
+                    .append(",\"overtimeMinutes\":").append(payslip.overtimeMinutes());
+            amount(json, "baseSalary", payslip.baseSalary());
+            amount(json, "overtimePay", payslip.overtimePay());
+            amount(json, "grossSalary", payslip.grossSalary());
+            amount(json, "sssContribution", payslip.sssContribution());
+            amount(json, "philHealthContribution", payslip.philHealthContribution());
+            amount(json, "pagIbigContribution", payslip.pagIbigContribution());
+            amount(json, "totalDeductions", payslip.totalDeductions());
+            amount(json, "withholdingTax", payslip.withholdingTax());
+            amount(json, "allowances", payslip.totalAllowances());
+            amount(json, "netSalary", payslip.finalPay());
+            json.append('}');
+        }
+        return json.append("]}");
+    }
+
+    private static void amount(StringBuilder json, String name, long centavos) {
+        Money.append(json.append(",\"").append(name).append("\":"), centavos);
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) quoted.append(String.format("\\u%04x", (int) c));
+                    else quoted.append(c);
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
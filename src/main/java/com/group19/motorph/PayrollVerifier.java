@@ -0,0 +1,261 @@
+/**
+ * This class verifies a payroll engine against the reference calculator, so a faster engine can be
+ * signed off only once every payslip matches to the centavo. The reference calculator computes
+ * payroll the way the original sequential system did: a single thread reads every attendance file
+ * row by row with a CSV reader, parses dates and times with java.time, and groups each employee's
+ * records by week, without the caches, byte parsers, shard pruning, parallel aggregation, week
+ * index or external sort of the optimized engines, and applies the attendance rules and pay
+ * computation through its own {@link ReferenceCalculator}, so any difference comes from how an
+ * engine reads, filters, groups or schedules the attendance or from how it applies the rules
+ * and computes pay. The reference runs on its own thread while the engine runs on the worker pool,
+ * and the payslips are then compared per employee-week, field by field, into a compact CSV report.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import com.opencsv.CSVReader;                           // Library for reading CSV files
+import java.io.*;                                       // For file input/output operations
+import java.nio.file.Path;                              // For attendance files
+import java.time.*;                                     // For attendance dates and times
+import java.time.format.*;                              // For parsing attendance dates and times
+import java.util.*;                                     // For collections like TreeMap
+import java.util.concurrent.*;                          // For running the reference calculator alongside the engine
+import java.util.function.ToLongFunction;               // For reading the compared payslip fields
+
+final class PayrollVerifier {
+
+    static final String IN_MEMORY = "in-memory";        // Engine of the all-employees batch run
+    static final String INDEX = "index";                // Engine of the payroll service's week-bucketed index
+    static final String OUT_OF_CORE = "out-of-core";    // Engine of the memory-bounded batch run
+    private static final int MAX_REPORTED_MISMATCHES = 1000;   // Mismatch rows written before the report only counts them
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");  // Date format of CSV dates
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("H:mm");        // Time format of CSV times (24-hour)
+    private static final List<Field> FIELDS = List.of(                  // Payslip fields compared after the name and week end
+            new Field("Work Minutes", false, Payslip::workMinutes),
+            new Field("Overtime Minutes", false, Payslip::overtimeMinutes),
+            new Field("Base Salary", true, Payslip::baseSalary),
+            new Field("Overtime Pay", true, Payslip::overtimePay),
+            new Field("Gross Salary", true, Payslip::grossSalary),
+            new Field("SSS Contribution", true, Payslip::sssContribution),
+            new Field("PhilHealth Contribution", true, Payslip::philHealthContribution),
+            new Field("Pag-Ibig Contribution", true, Payslip::pagIbigContribution),
+            new Field("Total Deductions", true, Payslip::totalDeductions),
+            new Field("Withholding Tax", true, Payslip::withholdingTax),
+            new Field("Allowances", true, Payslip::totalAllowances),
+            new Field("Net Salary", true, Payslip::finalPay));
+
+    private PayrollVerifier() {
+    }
+
+    /**
+     * A payroll engine being verified.
+     */
+    interface Engine {
+        /**
+         * Computes the payroll of every employee.
+         *
+         * @param sink Receives the payslips of every employee, in employee order
+         * @throws IOException If the engine cannot read its input
+         * @throws InterruptedException If interrupted while waiting for the workers
+         * @throws ExecutionException If a worker task fails
+         */
+        void computePayroll(PayslipSink sink) throws IOException, InterruptedException, ExecutionException;
+    }
+
+    /**
+     * @param name Column name of the field, as in the CSV payslip output
+     * @param amount True if the field is an amount in centavos, false if it is a number of minutes
+     * @param value Reads the field from a payslip
+     */
+    private record Field(String name, boolean amount, ToLongFunction<Payslip> value) {
+    }
+
+    /**
+     * Outcome of a verification.
+     *
+     * @param employees Employees written by the reference calculator
+     * @param payslips Payslips computed by the reference calculator
+     * @param mismatches Differences found: payslip fields, missing or extra payslips, employees and record counts
+     */
+    record Summary(int employees, long payslips, long mismatches) {
+    }
+
+    /**
+     * Runs the reference calculator and the engine side by side on the same inputs and writes
+     * every difference between their payslips to the report, one CSV row per differing field.
+     * The weekend, holiday, invalid and late record counts of the two are compared as well.
+     *
+     * @param employees Employees in employee number order
+     * @param attendanceFilePath Attendance CSV file, directory of CSV files, or glob pattern
+     * @param payPeriod Attendance dates to compute payroll for
+     * @param engineName Name of the engine, used as the report's column heading
+     * @param engine Engine being verified
+     * @param engineMetrics Metrics the engine counts its records in
+     * @param report Where the mismatch report is written
+     * @return The outcome
+     * @throws IOException If the attendance files cannot be read or the report cannot be written
+     * @throws InterruptedException If interrupted while waiting for the reference calculator or the workers
+     * @throws ExecutionException If the reference calculator or a worker task fails
+     */
+    static Summary verify(List<Employee> employees, String attendanceFilePath, PayPeriod payPeriod, String engineName,
+                          Engine engine, PayrollMetrics engineMetrics, Writer report)
+            throws IOException, InterruptedException, ExecutionException {
+        PayslipCollector expected = new PayslipCollector();
+        PayslipCollector actual = new PayslipCollector();
+        PayrollMetrics referenceMetrics = new PayrollMetrics("reference");
+        FutureTask<Void> reference = new FutureTask<>(() -> {
+            computeReferencePayroll(employees, attendanceFilePath, payPeriod, expected, referenceMetrics);
+            return null;
+        });
+        Thread referenceThread = new Thread(reference, "motorph-reference");
+        referenceThread.setDaemon(true);            // Never keeps the process alive if the engine fails
+        referenceThread.start();
+        engine.computePayroll(actual);
+        reference.get();
+
+        Report out = new Report(report, engineName);
+        if (!expected.employeeNumbers.equals(actual.employeeNumbers)) {
+            out.mismatch("", "", "Employees", expected.employeeNumbers.size() + " written", actual.employeeNumbers.size() + " written");
+        }
+        for (Payslip duplicate : actual.duplicates) {
+            out.mismatch(Integer.toString(duplicate.employeeNumber()), duplicate.startOfWeek().toString(), "Payslip", "single", "duplicate");
+        }
+        for (Map.Entry<Long, Payslip> entry : expected.payslips.entrySet()) {
+            compare(entry.getValue(), actual.payslips.get(entry.getKey()), out);
+        }
+        for (Map.Entry<Long, Payslip> entry : actual.payslips.entrySet()) {
+            Payslip extra = entry.getValue();
+            if (!expected.payslips.containsKey(entry.getKey())) {
+                out.mismatch(Integer.toString(extra.employeeNumber()), extra.startOfWeek().toString(), "Payslip", "missing", "present");
+            }
+        }
+        compareCount("Weekend Records", referenceMetrics.weekendRecords, engineMetrics.weekendRecords, out);
+        compareCount("Holiday Records", referenceMetrics.holidayRecords, engineMetrics.holidayRecords, out);
+        compareCount("Invalid Records", referenceMetrics.invalidRecords, engineMetrics.invalidRecords, out);
+        compareCount("Late Records", referenceMetrics.lateRecords, engineMetrics.lateRecords, out);
+        out.finish();
+        return new Summary(expected.employeeNumbers.size(), expected.payslips.size(), out.mismatches);
+    }
+
+    /**
+     * Computes the payroll of every employee the way the original sequential calculator did.
+     *
+     * @param employees Employees in employee number order
+     * @param attendanceFilePath Attendance CSV file, directory of CSV files, or glob pattern
+     * @param payPeriod Attendance dates to compute payroll for
+     * @param sink Receives the payslips of every employee, in employee order
+     * @param metrics Metrics the record counts are kept in
+     * @throws IOException If an attendance file or the payroll configuration cannot be read
+     */
+    static void computeReferencePayroll(List<Employee> employees, String attendanceFilePath, PayPeriod payPeriod,
+                                        PayslipSink sink, PayrollMetrics metrics) throws IOException {
+        ReferenceCalculator calculator = new ReferenceCalculator(MotorPH.WORK_SCHEDULE_FILE_PATH, MotorPH.HOLIDAY_FILE_PATH,
+                MotorPH.DEDUCTION_TABLE_FILE_PATH);
+        for (Path attendanceFile : AttendanceSource.shardPaths(attendanceFilePath)) {    // Every file, however it is named
+            try (CSVReader reader = new CSVReader(new FileReader(attendanceFile.toFile()))) {
+                reader.readNext(); // Skip the header row
+                String[] attendanceRecord;          // Array to hold each attendance record
+                while ((attendanceRecord = reader.readNext()) != null) {                // Read each row until end of file
+                    if (attendanceRecord.length < 6) continue;                          // Skip short rows
+                    String logInStr = attendanceRecord[4].trim();
+                    String logOutStr = attendanceRecord[5].trim();
+                    if (logInStr.isEmpty() || logOutStr.isEmpty()) continue;           // Skip records with missing times
+                    try {
+                        int employeeId = Integer.parseInt(attendanceRecord[0].trim());
+                        LocalDate date = LocalDate.parse(attendanceRecord[3].trim(), DATE_FORMATTER);
+                        if (!payPeriod.includes(date)) continue;                        // Outside the pay period
+                        LocalTime logIn = LocalTime.parse(logInStr, TIME_FORMATTER);
+                        LocalTime logOut = LocalTime.parse(logOutStr, TIME_FORMATTER);
+                        calculator.addRecord(employeeId, date, logIn, logOut, metrics);
+                    } catch (NumberFormatException | DateTimeParseException e) {
+                        // Malformed row; the engines skip it too
+                    }
+                }
+            } catch (com.opencsv.exceptions.CsvValidationException e) {
+                throw new IOException("Invalid attendance file " + attendanceFile + ": " + e.getMessage(), e);
+            }
+        }
+        for (Employee employee : employees) sink.write(employee, calculator.payslips(employee));
+    }
+
+    /**
+     * Writes a row for every field that differs between the reference payslip and the engine's payslip.
+     */
+    private static void compare(Payslip expected, Payslip actual, Report out) throws IOException {
+        String employee = Integer.toString(expected.employeeNumber());
+        String week = expected.startOfWeek().toString();
+        if (actual == null) {
+            out.mismatch(employee, week, "Payslip", "present", "missing");
+            return;
+        }
+        if (!expected.fullName().equals(actual.fullName())) out.mismatch(employee, week, "Name", expected.fullName(), actual.fullName());
+        if (!expected.endOfWeek().equals(actual.endOfWeek())) {
+            out.mismatch(employee, week, "Week End", expected.endOfWeek().toString(), actual.endOfWeek().toString());
+        }
+        for (Field field : FIELDS) {
+            long expectedValue = field.value().applyAsLong(expected);
+            long actualValue = field.value().applyAsLong(actual);
+            if (expectedValue != actualValue) {
+                out.mismatch(employee, week, field.name(),
+                        field.amount() ? Money.format(expectedValue) : Long.toString(expectedValue),
+                        field.amount() ? Money.format(actualValue) : Long.toString(actualValue));
+            }
+        }
+    }
+
+    private static void compareCount(String name, long expected, long actual, Report out) throws IOException {
+        if (expected != actual) out.mismatch("", "", name, Long.toString(expected), Long.toString(actual));
+    }
+
+    /**
+     * Sink that keeps the payslips of a run keyed by employee and week, for comparing runs.
+     */
+    private static final class PayslipCollector implements PayslipSink {
+        final List<Integer> employeeNumbers = new ArrayList<>();       // Employees in the order they were written
+        final TreeMap<Long, Payslip> payslips = new TreeMap<>();        // Payslips by employee number, then week
+        final List<Payslip> duplicates = new ArrayList<>();             // Payslips of an employee-week written more than once
+
+        @Override
+        public void write(Employee employee, List<Payslip> employeePayslips) {
+            employeeNumbers.add(employee.employeeNumber());
+            for (Payslip payslip : employeePayslips) {
+                long key = ((long) payslip.employeeNumber() << 32) | (payslip.startOfWeek().toEpochDay() & 0xFFFFFFFFL);
+                if (payslips.putIfAbsent(key, payslip) != null) duplicates.add(payslip);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Mismatch report: a header row, then one row per difference up to a limit, then a count of the rest.
+     */
+    private static final class Report {
+        private final Writer out;
+        private long mismatches;
+
+        Report(Writer out, String engineName) throws IOException {
+            this.out = out;
+            out.write("Employee #,Week Start,Field,Reference," + engineName + "\n");
+        }
+
+        void mismatch(String employee, String week, String field, String expected, String actual) throws IOException {
+            if (++mismatches > MAX_REPORTED_MISMATCHES) return;
+            out.write(employee + ',' + week + ',' + field + ',' + quoted(expected) + ',' + quoted(actual) + '\n');
+        }
+
+        void finish() throws IOException {
+            if (mismatches > MAX_REPORTED_MISMATCHES) {
+                out.write(",,More Mismatches," + (mismatches - MAX_REPORTED_MISMATCHES) + ",\n");
+            }
+            out.flush();
+        }
+
+        private static String quoted(String value) {
+            return value.indexOf(',') < 0 && value.indexOf('"') < 0 ? value : '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * This record holds the computed payroll of one employee for one week. Amounts are in centavos.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.time.LocalDate;                             // For the week period
+
+/**
+ * @param employeeNumber Employee number
+ * @param fullName Employee's full name
+ * @param startOfWeek Start date of the week (Monday)
+ * @param endOfWeek End date of the week (Friday)
+ * @param workMinutes Total regular work minutes for the week
+ * @param overtimeMinutes Total overtime minutes for the week
+ * @param baseSalary Base pay for regular hours
+ * @param overtimePay Additional pay for overtime hours
+ * @param grossSalary Total salary before deductions
+ * @param sssContribution SSS deduction
+ * @param philHealthContribution PhilHealth deduction
+ * @param pagIbigContribution Pag-IBIG deduction
+ * @param totalDeductions Sum of all statutory deductions
+ * @param withholdingTax Tax withheld
+ * @param totalAllowances Weekly allowances
+ * @param finalPay Net pay after all calculations
+ */
+record Payslip(int employeeNumber, String fullName, LocalDate startOfWeek, LocalDate endOfWeek,
+               long workMinutes, long overtimeMinutes, long baseSalary, long overtimePay,
+               long grossSalary, long sssContribution, long philHealthContribution,
+               long pagIbigContribution, long totalDeductions, long withholdingTax,
+               long totalAllowances, long finalPay) {
+}
@@ -0,0 +1,57 @@
+/**
+ * This interface receives the computed payslips of a payroll run.
+ * Payroll is computed into {@link Payslip} records first and then handed to a sink, one employee
+ * at a time in employee order, so the same run can be written as a console report or as
+ * a machine-readable file (CSV, JSON Lines or a fixed-width bank upload file).
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.io.*;                                       // For file input/output operations
+import java.util.*;                                     // For collections like List
+
+interface PayslipSink extends Closeable {
+
+    String CONSOLE = "console";         // Human-readable report, as printed by the payroll menu
+    String CSV = "csv";                 // One CSV row per payslip
+    String JSON_LINES = "jsonl";        // One JSON object per payslip per line
+    String BANK_FILE = "bank";          // Fixed-width bank upload file with one record per payslip
+
+    /**
+     * Writes the payslips of one employee.
+     *
+     * @param employee Employee the payslips belong to
+     * @param payslips The employee's weekly payslips in week order (empty if the employee has no valid attendance)
+     * @throws IOException If the output cannot be written
+     */
+    void write(Employee employee, List<Payslip> payslips) throws IOException;
+
+    /**
+     * Writes anything still buffered (and the closing records of formats that have them) and closes the output.
+     *
+     * @throws IOException If the output cannot be written
+     */
+    @Override
+    void close() throws IOException;
+
+    /**
+     * Opens a sink that writes in the given format.
+     *
+     * @param format One of {@link #CONSOLE}, {@link #CSV}, {@link #JSON_LINES} or {@link #BANK_FILE}
+     * @param out Stream the payslips are written to; closed when the sink is closed
+     * @param employeeHeader For the console format, whether each employee starts with an employee number, name and birthday block
+     * @return The sink
+     * @throws IllegalArgumentException If the format is unknown
+     */
+    static PayslipSink open(String format, OutputStream out, boolean employeeHeader) {
+        return switch (format) {
+            case CONSOLE -> new ConsolePayslipWriter(out, employeeHeader);
+            case CSV -> new CsvPayslipWriter(out);
+            case JSON_LINES -> new JsonLinesPayslipWriter(out);
+            case BANK_FILE -> new BankFilePayslipWriter(out);
+            default -> throw new IllegalArgumentException("Unknown payslip output format: " + format
+                    + " (expected " + CONSOLE + ", " + CSV + ", " + JSON_LINES + " or " + BANK_FILE + ")");
+        };
+    }
+}
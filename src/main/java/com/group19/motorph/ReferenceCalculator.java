@@ -0,0 +1,269 @@
+/**
+ * This class is the reference calculator the payroll verifier compares the engines against. It
+ * restates the attendance rules and the pay computation the way the original sequential system
+ * wrote them, independently of the engines' code: the work schedules, holidays and deduction
+ * tables are read from their files into java.time and BigDecimal values, each attendance record
+ * is turned into Durations from LocalDateTimes, and pay and deductions are computed in BigDecimal
+ * pesos with a linear search of the brackets. Nothing here is shared with the minute thresholds,
+ * fixed-point arithmetic or binary searches of the engines, so a regression in either shows up
+ * as a mismatch.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import com.opencsv.CSVReader;                           // Library for reading CSV files
+import java.io.*;                                       // For file input/output operations
+import java.math.*;                                     // For exact pay computation
+import java.time.*;                                     // For attendance dates, times and durations
+import java.time.format.DateTimeFormatter;              // For parsing dates in the configuration files
+import java.time.temporal.*;                            // For finding the Monday of a week
+import java.util.*;                                     // For collections like TreeMap
+
+final class ReferenceCalculator {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");  // Date format of CSV dates
+    private static final BigDecimal MINUTES_PER_HOUR = BigDecimal.valueOf(60);
+    private static final BigDecimal WEEKS_PER_MONTH = BigDecimal.valueOf(4);   // Weeks in a month for converting monthly amounts to weekly
+    private static final RoundingMode ROUNDING = RoundingMode.HALF_UP;         // Rounding of every amount to centavos
+
+    private final Map<Integer, Schedule> scheduleByEmployee = new HashMap<>();
+    private Schedule defaultSchedule;
+    private final TreeMap<LocalDate, Map<String, List<Bracket>>> deductionTables = new TreeMap<>();   // Effective date -> table name -> brackets
+    private final Map<Integer, TreeMap<LocalDate, Duration[]>> weeklyRecordsByEmployee = new HashMap<>();
+
+    /**
+     * A work schedule as declared in the work schedule file.
+     */
+    private record Schedule(LocalTime shiftStart, LocalTime shiftEnd, Duration grace, Duration breakTime,
+                            Set<DayOfWeek> workDays, BigDecimal overtimeRate, boolean lateForfeitsOvertime,
+                            Set<LocalDate> holidays, Set<LocalDate> holidaysOff) {
+
+        boolean overnight() {
+            return !shiftEnd.isAfter(shiftStart);
+        }
+
+        /**
+         * @return Punch times before this time of day are counted on the next day, for an overnight shift
+         */
+        LocalTime dayBoundary() {
+            Duration offDuty = Duration.between(shiftEnd, shiftStart);
+            return shiftEnd.plus(offDuty.dividedBy(2)).truncatedTo(ChronoUnit.MINUTES);
+        }
+
+        DayOfWeek lastWorkDay() {
+            return Collections.max(workDays);
+        }
+    }
+
+    /**
+     * One row of a deduction table: the amount is {@code base + (grossSalary - over) * rate}.
+     *
+     * @param upperLimit Inclusive weekly upper limit, or null for the top bracket
+     */
+    private record Bracket(BigDecimal upperLimit, BigDecimal base, BigDecimal rate, BigDecimal over) {
+    }
+
+    /**
+     * Reads the configuration the payroll is computed with.
+     *
+     * @param scheduleFilePath Path to the work schedule CSV file
+     * @param holidayFilePath Path to the holiday CSV file
+     * @param deductionTableFilePath Path to the deduction table CSV file
+     * @throws IOException If a file cannot be read or is invalid
+     */
+    ReferenceCalculator(String scheduleFilePath, String holidayFilePath, String deductionTableFilePath) throws IOException {
+        try {
+            Map<String, Set<LocalDate>> calendars = new HashMap<>();
+            Map<String, Set<LocalDate>> calendarDaysOff = new HashMap<>();     // Holidays declared days off
+            for (String[] row : readRows(holidayFilePath, 2)) {
+                LocalDate date = LocalDate.parse(row[1].trim(), DATE_FORMATTER);
+                calendars.computeIfAbsent(row[0].trim(), calendar -> new HashSet<>()).add(date);
+                if (row.length > 3 && Set.of("yes", "y", "true").contains(row[3].trim().toLowerCase(Locale.ROOT))) {
+                    calendarDaysOff.computeIfAbsent(row[0].trim(), calendar -> new HashSet<>()).add(date);
+                }
+            }
+            for (String[] row : readRows(scheduleFilePath, 10)) {
+                String calendar = row[8].trim();
+                Schedule schedule = new Schedule(LocalTime.parse(row[1].trim()), LocalTime.parse(row[2].trim()),
+                        Duration.ofMinutes(Long.parseLong(row[3].trim())), Duration.ofMinutes(Long.parseLong(row[4].trim())),
+                        parseWorkDays(row[5]), new BigDecimal(row[6].trim()),
+                        Set.of("yes", "y", "true").contains(row[7].trim().toLowerCase(Locale.ROOT)),
+                        calendar.isEmpty() ? Set.of() : calendars.getOrDefault(calendar, Set.of()),
+                        calendar.isEmpty() ? Set.of() : calendarDaysOff.getOrDefault(calendar, Set.of()));
+                for (String entry : row[9].trim().split("\\s+")) {
+                    if (entry.equals("*")) {
+                        defaultSchedule = schedule;
+                    } else if (!entry.isEmpty()) {
+                        String[] range = entry.split("-");
+                        int last = Integer.parseInt(range[range.length - 1]);
+                        for (int employee = Integer.parseInt(range[0]); employee <= last; employee++) scheduleByEmployee.put(employee, schedule);
+                    }
+                }
+            }
+            for (String[] row : readRows(deductionTableFilePath, 7)) {
+                deductionTables.computeIfAbsent(LocalDate.parse(row[2].trim(), DATE_FORMATTER), date -> new HashMap<>())
+                        .computeIfAbsent(row[0].trim(), name -> new ArrayList<>())
+                        .add(new Bracket(row[3].isBlank() ? null : new BigDecimal(row[3].trim()), new BigDecimal(row[4].trim()),
+                                new BigDecimal(row[5].trim()), new BigDecimal(row[6].trim())));
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid payroll configuration: " + e.getMessage(), e);
+        }
+        if (defaultSchedule == null || deductionTables.isEmpty()) throw new IOException("Incomplete payroll configuration");
+    }
+
+    private static List<String[]> readRows(String filePath, int columns) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
+            reader.readNext(); // Skip the header row
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                if (row.length >= columns && !row[0].isBlank()) rows.add(row);
+            }
+        } catch (com.opencsv.exceptions.CsvValidationException e) {
+            throw new IOException("Invalid CSV file " + filePath + ": " + e.getMessage(), e);
+        }
+        return rows;
+    }
+
+    private static Set<DayOfWeek> parseWorkDays(String days) {
+        Set<DayOfWeek> workDays = EnumSet.noneOf(DayOfWeek.class);
+        for (String part : days.trim().split("\\s*,\\s*")) {
+            String[] range = part.split("-");
+            DayOfWeek first = dayOfWeek(range[0]);
+            DayOfWeek last = dayOfWeek(range[range.length - 1]);
+            for (DayOfWeek day = first; ; day = day.plus(1)) {
+                workDays.add(day);
+                if (day == last) break;
+            }
+        }
+        return workDays;
+    }
+
+    private static DayOfWeek dayOfWeek(String name) {
+        String prefix = name.trim().substring(0, 3);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (day.name().regionMatches(true, 0, prefix, 0, 3)) return day;
+        }
+        throw new IllegalArgumentException("Unknown work day " + name);
+    }
+
+    private Schedule scheduleOf(int employeeId) {
+        return scheduleByEmployee.getOrDefault(employeeId, defaultSchedule);
+    }
+
+    /**
+     * Applies the attendance rules to one record and adds its work and overtime to the employee's week.
+     *
+     * @param employeeId Employee number
+     * @param date Attendance date
+     * @param logIn Log in time
+     * @param logOut Log out time
+     * @param metrics Metrics the weekend, holiday, invalid and late records are counted in
+     */
+    void addRecord(int employeeId, LocalDate date, LocalTime logIn, LocalTime logOut, PayrollMetrics metrics) {
+        Schedule schedule = scheduleOf(employeeId);
+        if (!schedule.workDays().contains(date.getDayOfWeek())) {       // Skip days off
+            metrics.weekendRecords++;
+            return;
+        }
+        if (schedule.holidays().contains(date)) {                       // Paid like any work day
+            metrics.holidayRecords++;
+            if (schedule.holidaysOff().contains(date)) return;          // Unless the holiday is a day off
+        }
+
+        LocalDateTime shiftStart = date.atTime(schedule.shiftStart());
+        LocalDateTime shiftEnd = (schedule.overnight() ? date.plusDays(1) : date).atTime(schedule.shiftEnd());
+        LocalDateTime graceEnd = shiftStart.plus(schedule.grace());
+        LocalDateTime in = punch(schedule, date, logIn);
+        LocalDateTime out = punch(schedule, date, logOut);
+        if (out.isBefore(in)) {                                         // Invalid time range
+            metrics.invalidRecords++;
+            return;
+        }
+
+        boolean late = in.isAfter(graceEnd);
+        if (late) metrics.lateRecords++;
+        if (in.isAfter(shiftStart) && in.isBefore(graceEnd)) in = shiftStart;     // On time within the grace period
+
+        LocalDateTime regularEnd = out.isBefore(shiftEnd) ? out : shiftEnd;       // Regular hours end at the shift end
+        Duration workDuration = Duration.between(in, regularEnd).minus(schedule.breakTime());
+        if (workDuration.isNegative()) workDuration = Duration.ZERO;
+        Duration overtimeDuration = out.isAfter(shiftEnd) && !(late && schedule.lateForfeitsOvertime())
+                ? Duration.between(shiftEnd, out) : Duration.ZERO;
+
+        LocalDate startOfWeek = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        Duration[] week = weeklyRecordsByEmployee.computeIfAbsent(employeeId, id -> new TreeMap<>())
+                .computeIfAbsent(startOfWeek, monday -> new Duration[]{Duration.ZERO, Duration.ZERO});
+        week[0] = week[0].plus(workDuration);
+        week[1] = week[1].plus(overtimeDuration);
+    }
+
+    /**
+     * @return The punch as a date and time, on the next day if it falls after midnight of an overnight shift
+     */
+    private static LocalDateTime punch(Schedule schedule, LocalDate date, LocalTime time) {
+        boolean nextDay = schedule.overnight() && time.isBefore(schedule.dayBoundary());
+        return (nextDay ? date.plusDays(1) : date).atTime(time);
+    }
+
+    /**
+     * Computes one payslip per week of the employee's attendance added so far.
+     *
+     * @param employee Employee to compute payslips for
+     * @return Payslips in week order
+     */
+    List<Payslip> payslips(Employee employee) {
+        Schedule schedule = scheduleOf(employee.employeeNumber());
+        BigDecimal hourlyRate = pesos(employee.hourlyRate());
+        BigDecimal weeklyAllowances = pesos(employee.riceSubsidy()).add(pesos(employee.phoneAllowance()))
+                .add(pesos(employee.clothingAllowance())).divide(WEEKS_PER_MONTH, 2, ROUNDING);
+        List<Payslip> payslips = new ArrayList<>();
+        TreeMap<LocalDate, Duration[]> weeklyRecords = weeklyRecordsByEmployee.getOrDefault(employee.employeeNumber(), new TreeMap<>());
+        for (Map.Entry<LocalDate, Duration[]> entry : weeklyRecords.entrySet()) {
+            LocalDate startOfWeek = entry.getKey();
+            BigDecimal workMinutes = BigDecimal.valueOf(entry.getValue()[0].toMinutes());
+            BigDecimal overtimeMinutes = BigDecimal.valueOf(entry.getValue()[1].toMinutes());
+
+            BigDecimal baseSalary = hourlyRate.multiply(workMinutes).divide(MINUTES_PER_HOUR, 2, ROUNDING);
+            BigDecimal overtimePay = hourlyRate.multiply(overtimeMinutes).multiply(schedule.overtimeRate()).divide(MINUTES_PER_HOUR, 2, ROUNDING);
+            BigDecimal grossSalary = baseSalary.add(overtimePay);
+
+            Map.Entry<LocalDate, Map<String, List<Bracket>>> tables = deductionTables.floorEntry(startOfWeek);
+            Map<String, List<Bracket>> tablesInEffect = (tables != null ? tables : deductionTables.firstEntry()).getValue();
+            BigDecimal sss = deduction(tablesInEffect, DeductionTables.SSS, grossSalary);
+            BigDecimal philHealth = deduction(tablesInEffect, DeductionTables.PHILHEALTH, grossSalary);
+            BigDecimal pagIbig = deduction(tablesInEffect, DeductionTables.PAG_IBIG, grossSalary);
+            BigDecimal withholdingTax = deduction(tablesInEffect, DeductionTables.WITHHOLDING_TAX, grossSalary);
+            BigDecimal totalDeductions = sss.add(philHealth).add(pagIbig);
+            BigDecimal finalPay = grossSalary.subtract(totalDeductions).subtract(withholdingTax).add(weeklyAllowances);
+
+            payslips.add(new Payslip(employee.employeeNumber(), employee.fullName(), startOfWeek, startOfWeek.with(schedule.lastWorkDay()),
+                    workMinutes.longValue(), overtimeMinutes.longValue(), centavos(baseSalary), centavos(overtimePay),
+                    centavos(grossSalary), centavos(sss), centavos(philHealth), centavos(pagIbig), centavos(totalDeductions),
+                    centavos(withholdingTax), centavos(weeklyAllowances), centavos(finalPay)));
+        }
+        return payslips;
+    }
+
+    /**
+     * @return Amount of the first bracket whose upper limit is at or above the gross salary, rounded to centavos
+     */
+    private static BigDecimal deduction(Map<String, List<Bracket>> tables, String name, BigDecimal grossSalary) {
+        for (Bracket bracket : tables.get(name)) {
+            if (bracket.upperLimit() == null || grossSalary.compareTo(bracket.upperLimit()) <= 0) {
+                return bracket.base().add(grossSalary.subtract(bracket.over()).multiply(bracket.rate())).setScale(2, ROUNDING);
+            }
+        }
+        throw new IllegalStateException(name + " table has no top bracket");
+    }
+
+    private static BigDecimal pesos(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    private static long centavos(BigDecimal pesos) {
+        return pesos.movePointRight(2).longValueExact();
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * This class accumulates regular and overtime minutes per employee and week.
+ * Totals are kept in an open-addressing hash table of primitive arrays so that adding an
+ * attendance record allocates nothing; they are converted to the weekly records used by
+ * the payroll calculation once all attendance has been read.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.time.*;                                     // For week start dates and durations
+import java.util.*;                                     // For collections like HashMap and TreeMap
+
+final class WeeklyAttendance {
+
+    private static final long EMPTY = 0L;   // Marks an unused slot; never a valid key because epoch day 0 is a Thursday
+
+    private long[] keys;                    // Employee ID in the high 32 bits, week start (Monday) epoch day in the low 32 bits
+    private long[] workMinutes;             // Regular work minutes of each (employee, week)
+    private long[] overtimeMinutes;         // Overtime minutes of each (employee, week)
+    private int size;                       // Number of (employee, week) entries
+
+    WeeklyAttendance() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedWeeks Expected number of (employee, week) entries
+     */
+    WeeklyAttendance(int expectedWeeks) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedWeeks * 2 - 1)) << 1;
+        keys = new long[capacity];
+        workMinutes = new long[capacity];
+        overtimeMinutes = new long[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds a day's regular and overtime minutes to an employee's week, creating the week if needed.
+     *
+     * @param employeeId Employee number
+     * @param weekStartEpochDay Epoch day of the Monday of the week
+     * @param work Regular work minutes to add
+     * @param overtime Overtime minutes to add
+     */
+    void add(int employeeId, int weekStartEpochDay, long work, long overtime) {
+        int slot = slotFor(key(employeeId, weekStartEpochDay));
+        workMinutes[slot] += work;
+        overtimeMinutes[slot] += overtime;
+    }
+
+    /**
+     * @param employeeId Employee number
+     * @param weekStartEpochDay Epoch day of the Monday of the week
+     * @return Regular work minutes of the employee's week, or 0 if the week has no records
+     */
+    long workMinutes(int employeeId, int weekStartEpochDay) {
+        int slot = find(key(employeeId, weekStartEpochDay));
+        return slot < 0 ? 0 : workMinutes[slot];
+    }
+
+    /**
+     * @param employeeId Employee number
+     * @param weekStartEpochDay Epoch day of the Monday of the week
+     * @return Overtime minutes of the employee's week, or 0 if the week has no records
+     */
+    long overtimeMinutes(int employeeId, int weekStartEpochDay) {
+        int slot = find(key(employeeId, weekStartEpochDay));
+        return slot < 0 ? 0 : overtimeMinutes[slot];
+    }
+
+    /**
+     * Adds all weekly totals of another accumulator into this one.
+     *
+     * @param other Totals to merge in
+     */
+    void merge(WeeklyAttendance other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] == EMPTY) continue;
+            int slot = slotFor(other.keys[i]);
+            workMinutes[slot] += other.workMinutes[i];
+            overtimeMinutes[slot] += other.overtimeMinutes[i];
+        }
+    }
+
+    /**
+     * Visits every (employee, week) entry in no particular order.
+     *
+     * @param visitor Receives employee ID, week start epoch day, regular minutes and overtime minutes
+     */
+    void forEach(WeekVisitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) visitor.visit((int) (keys[i] >>> 32), (int) keys[i], workMinutes[i], overtimeMinutes[i]);
+        }
+    }
+
+    /**
+     * Converts the totals to weekly records for the payroll calculation.
+     *
+     * @return Map of employee ID to that employee's weekly records (week start date to [workDuration, overtimeDuration])
+     */
+    Map<String, TreeMap<LocalDate, Duration[]>> toWeeklyRecords() {
+        Map<String, TreeMap<LocalDate, Duration[]>> attendanceIndex = new HashMap<>();
+        forEach((employeeId, weekStartEpochDay, work, overtime) -> attendanceIndex
+                .computeIfAbsent(Integer.toString(employeeId), id -> new TreeMap<>())
+                .put(LocalDate.ofEpochDay(weekStartEpochDay), new Duration[]{Duration.ofMinutes(work), Duration.ofMinutes(overtime)}));
+        return attendanceIndex;
+    }
+
+    /**
+     * Receives one (employee, week) entry.
+     */
+    interface WeekVisitor {
+        void visit(int employeeId, int weekStartEpochDay, long workMinutes, long overtimeMinutes);
+    }
+
+    private static long key(int employeeId, int weekStartEpochDay) {
+        return ((long) employeeId << 32) | (weekStartEpochDay & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return The slot of a key, or -1 if the key is not present
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the slot of a key, inserting the key if it is not present yet.
+     */
+    private int slotFor(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        if ((size + 1) * 2 > keys.length) {          // Keep the load factor at or below one half
+            grow();
+            return slotFor(key);
+        }
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldWork = workMinutes;
+        long[] oldOvertime = overtimeMinutes;
+        keys = new long[oldKeys.length * 2];
+        workMinutes = new long[keys.length];
+        overtimeMinutes = new long[keys.length];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int slot = slotFor(oldKeys[i]);
+            workMinutes[slot] = oldWork[i];
+            overtimeMinutes[slot] = oldOvertime[i];
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * This class is a read-only index of weekly regular and overtime minutes, bucketed by week.
+ * Each week's bucket holds the totals of the employees who worked that week, sorted by employee
+ * number, so a pay period query only touches the buckets of the weeks in the period and finds an
+ * employee in each bucket by binary search, however many weeks of history are indexed.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import java.time.*;                                     // For week start dates and durations
+import java.util.*;                                     // For collections like HashMap and TreeMap
+
+final class WeeklyAttendanceIndex {
+
+    private final int[] weekStarts;         // Monday of each week as epoch day, ascending
+    private final int[] bucketOffsets;      // Bucket of week i is entries [bucketOffsets[i], bucketOffsets[i + 1])
+    private final int[] employeeIds;        // Employee of each entry, ascending within a bucket
+    private final long[] workMinutes;       // Regular work minutes of each entry
+    private final long[] overtimeMinutes;   // Overtime minutes of each entry
+
+    private WeeklyAttendanceIndex(int[] weekStarts, int[] bucketOffsets, int[] employeeIds, long[] workMinutes, long[] overtimeMinutes) {
+        this.weekStarts = weekStarts;
+        this.bucketOffsets = bucketOffsets;
+        this.employeeIds = employeeIds;
+        this.workMinutes = workMinutes;
+        this.overtimeMinutes = overtimeMinutes;
+    }
+
+    /**
+     * Builds the index of aggregated weekly totals.
+     *
+     * @param totals Weekly totals of all employees
+     * @return The index
+     */
+    static WeeklyAttendanceIndex of(WeeklyAttendance totals) {
+        // Sort (week, employee) pairs so that each week's entries are contiguous and ordered by employee
+        long[] keys = new long[totals.size()];
+        int[] count = {0};
+        totals.forEach((employeeId, weekStartEpochDay, work, overtime) ->
+                keys[count[0]++] = ((long) weekStartEpochDay << 32) | (employeeId & 0xFFFFFFFFL));
+        Arrays.sort(keys);
+
+        int weeks = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] >>> 32 != keys[i - 1] >>> 32) weeks++;
+        }
+        int[] weekStarts = new int[weeks];
+        int[] bucketOffsets = new int[weeks + 1];
+        int[] employeeIds = new int[keys.length];
+        long[] workMinutes = new long[keys.length];
+        long[] overtimeMinutes = new long[keys.length];
+        int week = -1;
+        for (int i = 0; i < keys.length; i++) {
+            int weekStartEpochDay = (int) (keys[i] >> 32);
+            if (week < 0 || weekStarts[week] != weekStartEpochDay) {
+                weekStarts[++week] = weekStartEpochDay;
+                bucketOffsets[week] = i;
+            }
+            employeeIds[i] = (int) keys[i];
+            workMinutes[i] = totals.workMinutes(employeeIds[i], weekStartEpochDay);
+            overtimeMinutes[i] = totals.overtimeMinutes(employeeIds[i], weekStartEpochDay);
+        }
+        bucketOffsets[weeks] = keys.length;
+        return new WeeklyAttendanceIndex(weekStarts, bucketOffsets, employeeIds, workMinutes, overtimeMinutes);
+    }
+
+    int weekCount() {
+        return weekStarts.length;
+    }
+
+    int entryCount() {
+        return employeeIds.length;
+    }
+
+    /**
+     * Looks up one employee's weekly records in the weeks of a pay period.
+     *
+     * @param employeeId Employee number
+     * @param period Pay period of whole weeks
+     * @return TreeMap with week start dates as keys and arrays of [workDuration, overtimeDuration] as values
+     * @throws IllegalArgumentException If the period does not start on a Monday and end on a Sunday
+     */
+    TreeMap<LocalDate, Duration[]> weeklyRecordsOf(int employeeId, PayPeriod period) {
+        requireWholeWeeks(period);
+        TreeMap<LocalDate, Duration[]> weeklyRecords = new TreeMap<>();
+        for (int week = firstWeek(period), last = lastWeek(period); week <= last; week++) {
+            int entry = Arrays.binarySearch(employeeIds, bucketOffsets[week], bucketOffsets[week + 1], employeeId);
+            if (entry >= 0) weeklyRecords.put(LocalDate.ofEpochDay(weekStarts[week]), durations(entry));
+        }
+        return weeklyRecords;
+    }
+
+    /**
+     * Looks up every employee's weekly records in the weeks of a pay period.
+     *
+     * @param period Pay period of whole weeks
+     * @return Map of employee ID to that employee's weekly records (week start date to [workDuration, overtimeDuration])
+     * @throws IllegalArgumentException If the period does not start on a Monday and end on a Sunday
+     */
+    Map<String, TreeMap<LocalDate, Duration[]>> weeklyRecords(PayPeriod period) {
+        requireWholeWeeks(period);
+        Map<String, TreeMap<LocalDate, Duration[]>> attendanceIndex = new HashMap<>();
+        for (int week = firstWeek(period), last = lastWeek(period); week <= last; week++) {
+            LocalDate weekStart = LocalDate.ofEpochDay(weekStarts[week]);
+            for (int entry = bucketOffsets[week]; entry < bucketOffsets[week + 1]; entry++) {
+                attendanceIndex.computeIfAbsent(Integer.toString(employeeIds[entry]), id -> new TreeMap<>())
+                        .put(weekStart, durations(entry));
+            }
+        }
+        return attendanceIndex;
+    }
+
+    private Duration[] durations(int entry) {
+        return new Duration[]{Duration.ofMinutes(workMinutes[entry]), Duration.ofMinutes(overtimeMinutes[entry])};
+    }
+
+    /**
+     * Totals are kept per week, so they cannot be split at a day inside a week.
+     */
+    private static void requireWholeWeeks(PayPeriod period) {
+        if (!period.isWholeWeeks()) {
+            throw new IllegalArgumentException("Pay period " + period.start() + " to " + period.end() + " does not start on a Monday and end on a Sunday");
+        }
+    }
+
+    /**
+     * @return Index of the first week of the period (may be past the last week)
+     */
+    private int firstWeek(PayPeriod period) {
+        if (period.start() == null) return 0;
+        return insertionPoint(Arrays.binarySearch(weekStarts, (int) period.start().toEpochDay()));
+    }
+
+    /**
+     * @return Index of the last week of the period (may be before the first week)
+     */
+    private int lastWeek(PayPeriod period) {
+        if (period.end() == null) return weekStarts.length - 1;
+        int found = Arrays.binarySearch(weekStarts, (int) period.end().toEpochDay());
+        return found >= 0 ? found : insertionPoint(found) - 1;
+    }
+
+    private static int insertionPoint(int binarySearchResult) {
+        return binarySearchResult >= 0 ? binarySearchResult : -binarySearchResult - 1;
+    }
+}
@@ -0,0 +1,381 @@
+/**
+ * This class holds the work schedules of the employee groups: each group's shift, grace period,
+ * break, work days, overtime rate, whether late employees forfeit overtime, and holiday calendar.
+ * Schedules are loaded once from the work schedule file and compiled into primitive arrays of
+ * minute-of-day thresholds indexed by schedule number, and employees are mapped to their schedule
+ * through a table indexed by employee number, so applying the rules to a punch reads a few array
+ * elements and allocates nothing.
+ * A shift that ends at or before its start time runs overnight: its end is counted on the next day,
+ * and punches before the midpoint of its off-duty hours are counted as after midnight.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import com.opencsv.CSVReader;                           // Library for reading CSV files
+import java.io.*;                                       // For file input/output operations
+import java.math.RoundingMode;                          // For parsing overtime rates exactly
+import java.time.*;                                     // For shift times and holiday dates
+import java.time.format.DateTimeFormatter;              // For parsing holiday dates
+import java.util.*;                                     // For collections like ArrayList and TreeMap
+import java.util.zip.*;                                 // For fingerprinting the compiled rules
+
+final class WorkSchedules {
+
+    static final int MINUTES_PER_DAY = 24 * 60;                 // Minutes added to times counted on the next day
+    private static final String ALL_EMPLOYEES = "*";            // Employees entry of the default schedule
+    private static final int MAX_EMPLOYEE_SPAN = 1 << 20;       // Most employee numbers the schedule table may span
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");  // Date format of holiday dates
+    private static final String[] DAY_NAMES = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};       // Day of week prefixes, Monday first
+
+    private final String[] names;               // Group name of each schedule
+    private final int[] startMinutes;           // Shift start as minute of the day
+    private final int[] graceEndMinutes;        // End of the grace period; log ins after it are late
+    private final int[] endMinutes;             // Shift end, past MINUTES_PER_DAY for overnight shifts
+    private final int[] dayBoundaryMinutes;     // Times before this are counted on the next day (0 unless overnight)
+    private final int[] breakMinutes;           // Unpaid break deducted per day
+    private final int[] overtimeCutoffMinutes;  // Latest log in that still earns overtime
+    private final int[] workDays;               // Bit d set if day d of the week (0 = Monday) is a work day
+    private final long[] overtimeRates;         // Overtime pay multiplier at Money.RATE_SCALE decimals
+    private final int[] holidayFirstDays;       // Epoch day of bit 0 of the schedule's holiday bitmap
+    private final long[][] holidayBits;         // Bitmap of the schedule's holidays, one bit per day
+    private final long[][] holidayDayOffBits;   // Bitmap of the holidays declared days off, from the same first day
+    private final int firstEmployee;            // Employee number of index 0 of the schedule table
+    private final int[] scheduleByEmployee;     // Schedule of each employee number from firstEmployee
+    private final int defaultSchedule;          // Schedule of employees not in the table
+    private final long fingerprint;             // Checksum of the compiled rules
+
+    private WorkSchedules(List<Schedule> schedules, int defaultSchedule, int firstEmployee, int[] scheduleByEmployee) {
+        int count = schedules.size();
+        this.names = new String[count];
+        this.startMinutes = new int[count];
+        this.graceEndMinutes = new int[count];
+        this.endMinutes = new int[count];
+        this.dayBoundaryMinutes = new int[count];
+        this.breakMinutes = new int[count];
+        this.overtimeCutoffMinutes = new int[count];
+        this.workDays = new int[count];
+        this.overtimeRates = new long[count];
+        this.holidayFirstDays = new int[count];
+        this.holidayBits = new long[count][];
+        this.holidayDayOffBits = new long[count][];
+        for (int s = 0; s < count; s++) {
+            Schedule schedule = schedules.get(s);
+            boolean overnight = schedule.endMinute() <= schedule.startMinute();
+            names[s] = schedule.name();
+            startMinutes[s] = schedule.startMinute();
+            graceEndMinutes[s] = schedule.startMinute() + schedule.graceMinutes();
+            endMinutes[s] = overnight ? schedule.endMinute() + MINUTES_PER_DAY : schedule.endMinute();
+            dayBoundaryMinutes[s] = overnight ? (schedule.endMinute() + schedule.startMinute()) / 2 : 0;
+            breakMinutes[s] = schedule.breakMinutes();
+            overtimeCutoffMinutes[s] = schedule.lateForfeitsOvertime() ? graceEndMinutes[s] : Integer.MAX_VALUE;
+            workDays[s] = schedule.workDays();
+            overtimeRates[s] = schedule.overtimeRate();
+            holidayFirstDays[s] = schedule.holidays().isEmpty() ? 0 : schedule.holidays().firstKey();
+            holidayBits[s] = holidayBitmap(schedule.holidays(), false);
+            holidayDayOffBits[s] = holidayBitmap(schedule.holidays(), true);
+        }
+        this.defaultSchedule = defaultSchedule;
+        this.firstEmployee = firstEmployee;
+        this.scheduleByEmployee = scheduleByEmployee;
+        this.fingerprint = computeFingerprint();
+    }
+
+    /**
+     * A work schedule as declared in the work schedule file.
+     *
+     * @param name Group name
+     * @param startMinute Shift start as minute of the day
+     * @param endMinute Shift end as minute of the day; at or before the start for an overnight shift
+     * @param graceMinutes Minutes after the start a log in is still on time
+     * @param breakMinutes Unpaid break deducted per day
+     * @param workDays Bit d set if day d of the week (0 = Monday) is a work day
+     * @param overtimeRate Overtime pay multiplier at Money.RATE_SCALE decimals
+     * @param lateForfeitsOvertime Whether a late log in earns no overtime that day
+     * @param holidays Whether each of the group's holidays is a day off, keyed by epoch day
+     */
+    private record Schedule(String name, int startMinute, int endMinute, int graceMinutes, int breakMinutes, int workDays,
+                            long overtimeRate, boolean lateForfeitsOvertime, NavigableMap<Integer, Boolean> holidays) {
+    }
+
+    /**
+     * Loads and compiles the work schedules.
+     * Each row of the work schedule file is one group: group name, shift start and end (HH:mm),
+     * grace minutes, break minutes, work days (e.g. {@code Mon-Fri}, {@code Mon-Sat} or {@code Sun,Tue-Thu}),
+     * overtime rate, whether late employees forfeit overtime (Yes or No), holiday calendar (blank
+     * for none) and employees. Employees are listed as employee numbers and ranges separated by
+     * spaces (e.g. {@code 10030-10034 10040}); exactly one group lists {@code *} and is the schedule
+     * of every employee not listed by another group.
+     * Each row of the holiday file is one holiday: calendar name, date (MM/dd/yyyy), holiday name and
+     * whether it is a day off (Yes or No, blank for No). Records dated on a holiday of the employee's
+     * calendar are paid as regular work, unless the holiday is a day off; then they are not paid,
+     * like records on a day off.
+     *
+     * @param scheduleFilePath Path to the work schedule CSV file
+     * @param holidayFilePath Path to the holiday CSV file
+     * @return The compiled work schedules
+     * @throws IOException If a file cannot be read or contains an invalid schedule or holiday
+     */
+    static WorkSchedules load(String scheduleFilePath, String holidayFilePath) throws IOException {
+        Map<String, NavigableMap<Integer, Boolean>> calendars = loadHolidays(holidayFilePath);
+        List<Schedule> schedules = new ArrayList<>();
+        List<int[]> ranges = new ArrayList<>();         // [first employee, last employee, schedule]
+        int defaultSchedule = -1;
+        try (CSVReader reader = new CSVReader(new FileReader(scheduleFilePath))) {
+            reader.readNext(); // Skip the header row
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                if (row.length < 10 || row[0].isBlank()) continue;             // Skip blank or short rows
+                String name = row[0].trim();
+                String calendar = row[8].trim();
+                NavigableMap<Integer, Boolean> holidays = calendar.isEmpty() ? Collections.emptyNavigableMap() : calendars.get(calendar);
+                if (holidays == null) throw new IOException("Unknown holiday calendar " + calendar + " in group " + name);
+                int startMinute = LocalTime.parse(row[1].trim()).toSecondOfDay() / 60;
+                int endMinute = LocalTime.parse(row[2].trim()).toSecondOfDay() / 60;
+                int graceMinutes = Integer.parseInt(row[3].trim());
+                int breakMinutes = Integer.parseInt(row[4].trim());
+                if (startMinute == endMinute) throw new IOException("Shift of group " + name + " starts and ends at the same time");
+                if (graceMinutes < 0 || breakMinutes < 0) throw new IOException("Negative grace or break minutes in group " + name);
+                schedules.add(new Schedule(name, startMinute, endMinute, graceMinutes, breakMinutes, parseWorkDays(row[5], name),
+                        Money.parse(row[6].trim(), Money.RATE_SCALE, RoundingMode.UNNECESSARY), parseYesNo(row[7], "group " + name), holidays));
+
+                String employees = row[9].trim();
+                if (employees.equals(ALL_EMPLOYEES)) {
+                    if (defaultSchedule >= 0) throw new IOException("More than one group lists all employees (" + ALL_EMPLOYEES + ")");
+                    defaultSchedule = schedules.size() - 1;
+                    continue;
+                }
+                for (String entry : employees.split("\\s+")) {
+                    if (entry.isEmpty()) continue;
+                    int dash = entry.indexOf('-');
+                    int first = Integer.parseInt(dash < 0 ? entry : entry.substring(0, dash));
+                    int last = dash < 0 ? first : Integer.parseInt(entry.substring(dash + 1));
+                    if (last < first) throw new IOException("Employee range " + entry + " of group " + name + " is backwards");
+                    ranges.add(new int[]{first, last, schedules.size() - 1});
+                }
+            }
+        } catch (com.opencsv.exceptions.CsvValidationException | RuntimeException e) {
+            throw new IOException("Invalid work schedule file " + scheduleFilePath + ": " + e.getMessage(), e);
+        }
+        if (schedules.isEmpty()) throw new IOException("No work schedules found in " + scheduleFilePath);
+        if (defaultSchedule < 0) throw new IOException("No work schedule lists all employees (" + ALL_EMPLOYEES + ") in " + scheduleFilePath);
+
+        // Compile the employee ranges into a table indexed by employee number
+        int firstEmployee = ranges.stream().mapToInt(range -> range[0]).min().orElse(0);
+        long lastEmployee = ranges.stream().mapToInt(range -> range[1]).max().orElse(-1);
+        if (lastEmployee - firstEmployee + 1 > MAX_EMPLOYEE_SPAN) {
+            throw new IOException("Employees of the work schedules span more than " + MAX_EMPLOYEE_SPAN + " employee numbers");
+        }
+        int[] scheduleByEmployee = new int[(int) (lastEmployee - firstEmployee + 1)];
+        Arrays.fill(scheduleByEmployee, -1);
+        for (int[] range : ranges) {
+            for (int employee = range[0]; employee <= range[1]; employee++) {
+                int index = employee - firstEmployee;
+                if (scheduleByEmployee[index] >= 0 && scheduleByEmployee[index] != range[2]) {
+                    throw new IOException("Employee " + employee + " is in groups " + schedules.get(scheduleByEmployee[index]).name()
+                            + " and " + schedules.get(range[2]).name());
+                }
+                scheduleByEmployee[index] = range[2];
+            }
+        }
+        for (int i = 0; i < scheduleByEmployee.length; i++) {
+            if (scheduleByEmployee[i] < 0) scheduleByEmployee[i] = defaultSchedule;     // Gaps between ranges
+        }
+        return new WorkSchedules(schedules, defaultSchedule, firstEmployee, scheduleByEmployee);
+    }
+
+    /**
+     * @return Whether each holiday of each calendar is a day off, keyed by calendar name and epoch day
+     */
+    private static Map<String, NavigableMap<Integer, Boolean>> loadHolidays(String holidayFilePath) throws IOException {
+        Map<String, NavigableMap<Integer, Boolean>> calendars = new HashMap<>();
+        try (CSVReader reader = new CSVReader(new FileReader(holidayFilePath))) {
+            reader.readNext(); // Skip the header row
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                if (row.length < 2 || row[0].isBlank()) continue;              // Skip blank or short rows
+                int epochDay = (int) LocalDate.parse(row[1].trim(), DATE_FORMATTER).toEpochDay();
+                boolean dayOff = row.length > 3 && !row[3].isBlank() && parseYesNo(row[3], "holiday calendar " + row[0].trim());
+                calendars.computeIfAbsent(row[0].trim(), calendar -> new TreeMap<>()).put(epochDay, dayOff);
+            }
+        } catch (com.opencsv.exceptions.CsvValidationException | RuntimeException e) {
+            throw new IOException("Invalid holiday file " + holidayFilePath + ": " + e.getMessage(), e);
+        }
+        return calendars;
+    }
+
+    /**
+     * @return Bit d set for each work day d of the week (0 = Monday)
+     */
+    private static int parseWorkDays(String days, String name) throws IOException {
+        int mask = 0;
+        for (String part : days.trim().toLowerCase(Locale.ROOT).split("\\s*,\\s*")) {
+            int dash = part.indexOf('-');
+            int first = dayOfWeek(dash < 0 ? part : part.substring(0, dash), name);
+            int last = dash < 0 ? first : dayOfWeek(part.substring(dash + 1), name);
+            for (int day = first; ; day = (day + 1) % 7) {     // Ranges may wrap around the week, e.g. Sat-Mon
+                mask |= 1 << day;
+                if (day == last) break;
+            }
+        }
+        return mask;
+    }
+
+    private static int dayOfWeek(String day, String name) throws IOException {
+        String prefix = day.trim();
+        for (int d = 0; d < DAY_NAMES.length; d++) {
+            if (prefix.length() >= 3 && DAY_NAMES[d].equals(prefix.substring(0, 3))) return d;
+        }
+        throw new IOException("Unknown work day " + day + " in group " + name);
+    }
+
+    private static boolean parseYesNo(String value, String name) throws IOException {
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "yes", "y", "true" -> true;
+            case "no", "n", "false" -> false;
+            default -> throw new IOException("Expected Yes or No, not " + value + ", in " + name);
+        };
+    }
+
+    /**
+     * @param dayOffOnly Whether only the holidays that are days off are set
+     * @return Bitmap of the holidays, bit 0 being the first holiday
+     */
+    private static long[] holidayBitmap(NavigableMap<Integer, Boolean> holidays, boolean dayOffOnly) {
+        if (holidays.isEmpty()) return new long[0];
+        int first = holidays.firstKey();
+        long[] bits = new long[(holidays.lastKey() - first) / 64 + 1];
+        for (Map.Entry<Integer, Boolean> holiday : holidays.entrySet()) {
+            int day = holiday.getKey() - first;
+            if (!dayOffOnly || holiday.getValue()) bits[day >>> 6] |= 1L << day;
+        }
+        return bits;
+    }
+
+    private long computeFingerprint() {
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(OutputStream.nullOutputStream(), crc))) {
+            for (int s = 0; s < names.length; s++) {
+                out.writeInt(startMinutes[s]);
+                out.writeInt(graceEndMinutes[s]);
+                out.writeInt(endMinutes[s]);
+                out.writeInt(dayBoundaryMinutes[s]);
+                out.writeInt(breakMinutes[s]);
+                out.writeInt(overtimeCutoffMinutes[s]);
+                out.writeInt(workDays[s]);
+                out.writeLong(overtimeRates[s]);
+                out.writeInt(holidayFirstDays[s]);
+                for (long bits : holidayBits[s]) out.writeLong(bits);
+                for (long bits : holidayDayOffBits[s]) out.writeLong(bits);
+            }
+            out.writeInt(firstEmployee);
+            for (int schedule : scheduleByEmployee) out.writeInt(schedule);
+            out.writeInt(defaultSchedule);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);          // Not thrown by an in-memory checksum
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * @param employeeId Employee number
+     * @return Schedule number of the employee's group
+     */
+    int scheduleOf(int employeeId) {
+        int index = employeeId - firstEmployee;
+        return index >= 0 && index < scheduleByEmployee.length ? scheduleByEmployee[index] : defaultSchedule;
+    }
+
+    int scheduleCount() {
+        return names.length;
+    }
+
+    String name(int schedule) {
+        return names[schedule];
+    }
+
+    /**
+     * @param schedule Schedule number
+     * @param dayOfWeek Day of the week, 0 = Monday ... 6 = Sunday
+     * @return True if the day is a work day of the schedule
+     */
+    boolean isWorkDay(int schedule, int dayOfWeek) {
+        return (workDays[schedule] >>> dayOfWeek & 1) != 0;
+    }
+
+    /**
+     * @return Last work day of the week (0 = Monday ... 6 = Sunday), the end date shown on payslips
+     */
+    int lastWorkDay(int schedule) {
+        return 31 - Integer.numberOfLeadingZeros(workDays[schedule]);
+    }
+
+    /**
+     * @param schedule Schedule number
+     * @param epochDay Date as days since 1970-01-01
+     * @return True if the date is a holiday in the schedule's holiday calendar
+     */
+    boolean isHoliday(int schedule, int epochDay) {
+        return isSet(holidayBits[schedule], (long) epochDay - holidayFirstDays[schedule]);
+    }
+
+    /**
+     * @param schedule Schedule number
+     * @param epochDay Date as days since 1970-01-01
+     * @return True if the date is a holiday declared a day off in the schedule's holiday calendar
+     */
+    boolean isHolidayDayOff(int schedule, int epochDay) {
+        return isSet(holidayDayOffBits[schedule], (long) epochDay - holidayFirstDays[schedule]);
+    }
+
+    private static boolean isSet(long[] bits, long day) {
+        return day >= 0 && day < (long) bits.length << 6 && (bits[(int) (day >>> 6)] & 1L << day) != 0;
+    }
+
+    int startMinute(int schedule) {
+        return startMinutes[schedule];
+    }
+
+    int graceEndMinute(int schedule) {
+        return graceEndMinutes[schedule];
+    }
+
+    /**
+     * @return Shift end, past {@link #MINUTES_PER_DAY} for an overnight shift
+     */
+    int endMinute(int schedule) {
+        return endMinutes[schedule];
+    }
+
+    /**
+     * @return Punch times before this minute of the day are counted on the next day (0 unless the shift is overnight)
+     */
+    int dayBoundaryMinute(int schedule) {
+        return dayBoundaryMinutes[schedule];
+    }
+
+    int breakMinutes(int schedule) {
+        return breakMinutes[schedule];
+    }
+
+    /**
+     * @return Latest log in that still earns overtime ({@link Integer#MAX_VALUE} if being late does not forfeit overtime)
+     */
+    int overtimeCutoffMinute(int schedule) {
+        return overtimeCutoffMinutes[schedule];
+    }
+
+    /**
+     * @return Overtime pay multiplier at {@link Money#RATE_SCALE} decimals
+     */
+    long overtimeRate(int schedule) {
+        return overtimeRates[schedule];
+    }
+
+    /**
+     * @return Checksum of the compiled rules, which changes whenever the rules would compute different totals
+     */
+    long fingerprint() {
+        return fingerprint;
+    }
+}
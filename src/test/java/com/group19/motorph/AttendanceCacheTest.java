@@ -0,0 +1,56 @@
+/**
+ * Tests of the columnar attendance cache file.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import static org.junit.jupiter.api.Assertions.*;      // For assertions
+
+import java.io.*;                                       // For file input/output exceptions
+import java.nio.*;                                      // For writing a cache header
+import java.nio.channels.FileChannel;                   // For writing a sparse cache file
+import java.nio.file.*;                                 // For temporary cache files
+import org.junit.jupiter.api.*;                         // For test annotations
+import org.junit.jupiter.api.io.TempDir;                // For a temporary directory
+
+class AttendanceCacheTest {
+
+    private static final long SOURCE_SIZE = 1234;
+    private static final long SOURCE_MODIFIED = 5678;
+
+    @Test
+    void readsBackTheColumnsItWrote(@TempDir Path directory) throws IOException {
+        AttendanceColumns.Builder builder = new AttendanceColumns.Builder();
+        builder.onRecord(10002, 19_884, 480, 1020);
+        builder.onRecord(10001, 19_884, 475, 1030);
+        builder.onRecord(10002, 19_885, 490, 1000);
+        builder.onSkippedRow();
+        Path cache = directory.resolve("attendance.csv.cache");
+        AttendanceCache.write(cache, builder.build(), SOURCE_SIZE, SOURCE_MODIFIED);
+
+        AttendanceColumns columns = AttendanceCache.read(cache, SOURCE_SIZE, SOURCE_MODIFIED);
+        assertNotNull(columns);
+        assertTrue(columns.isCached());
+        assertEquals(3, columns.rowCount());
+        assertArrayEquals(new int[]{10001, 10002}, columns.employeeIds);
+        assertEquals(1, columns.skippedRowCount);
+        assertEquals(1030, columns.logOutMinutes.get(0));
+        assertNull(AttendanceCache.read(cache, SOURCE_SIZE + 1, SOURCE_MODIFIED));        // Stale
+    }
+
+    @Test
+    void fallsBackWhenAColumnIsTooLargeToMap(@TempDir Path directory) throws IOException {
+        int rowCount = AttendanceCache.MAX_CACHED_ROWS + 1;
+        Path cache = directory.resolve("attendance.csv.cache");
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0x4D504841).putInt(2).putLong(SOURCE_SIZE).putLong(SOURCE_MODIFIED)
+                    .putInt(rowCount).putInt(1).putInt(0).putInt(0).flip();
+            channel.write(header);
+            long expectedSize = 40 + 4L * 3 + 16L * rowCount;
+            channel.write(ByteBuffer.allocate(1), expectedSize - 1);        // Sparse, so no disk space is used
+        }
+        assertNull(AttendanceCache.read(cache, SOURCE_SIZE, SOURCE_MODIFIED));
+    }
+}
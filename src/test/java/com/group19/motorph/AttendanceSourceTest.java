@@ -0,0 +1,54 @@
+/**
+ * Tests of how attendance locations are resolved into shards and how shards are pruned by pay period.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import static org.junit.jupiter.api.Assertions.*;      // For assertions
+
+import java.io.*;                                       // For file input/output exceptions
+import java.nio.file.*;                                 // For temporary shard files
+import java.time.LocalDate;                             // For pay period dates
+import java.util.*;                                     // For collections like List
+import org.junit.jupiter.api.*;                         // For test annotations
+import org.junit.jupiter.api.io.TempDir;                // For a temporary directory
+
+class AttendanceSourceTest {
+
+    private static final PayPeriod JUNE_10_TO_16 = new PayPeriod(LocalDate.of(2024, 6, 10), LocalDate.of(2024, 6, 16));
+
+    @Test
+    void globMatchesOnlyCsvFiles(@TempDir Path directory) throws IOException {
+        for (String name : List.of("attendance-a.csv", "attendance-b.csv", "attendance-a.csv.cache",
+                "attendance-a.csv.state", "attendance-b.csv.tmp", "attendance-notes.txt")) {
+            Files.writeString(directory.resolve(name), "");
+        }
+        List<Path> shards = AttendanceSource.shardPaths(directory + "/attendance*");
+        assertEquals(List.of(directory.resolve("attendance-a.csv"), directory.resolve("attendance-b.csv")), shards);
+    }
+
+    @Test
+    void skipsShardsDatedOutsideThePeriod() {
+        assertTrue(mayContain("siteA-2024-06-10.csv"));
+        assertTrue(mayContain("siteA-20240616.csv"));
+        assertFalse(mayContain("siteA-2024-06-09.csv"));
+        assertFalse(mayContain("siteA-2024-06-17.csv"));
+        assertTrue(mayContain("attendancerecord.csv"));                     // No date, so it has to be read
+        assertTrue(mayContain("site-20241399.csv"));                        // Not a date
+    }
+
+    @Test
+    void treatsSeveralDatesInANameAsARange() {
+        assertTrue(mayContain("2024-06-01_2024-06-30.csv"));                // Range around the period
+        assertTrue(mayContain("20240615-20240620.csv"));                    // Range overlapping the end of the period
+        assertTrue(mayContain("siteA-2024-06-12-exported-2024-06-20.csv")); // Day and export date
+        assertTrue(mayContain("siteA-2024-06-05-exported-2024-06-11.csv")); // Export date inside the period
+        assertFalse(mayContain("2024-05-01_2024-06-09.csv"));               // Range before the period
+        assertFalse(mayContain("20240617-20240630.csv"));                   // Range after the period
+    }
+
+    private static boolean mayContain(String fileName) {
+        return AttendanceSource.mayContain(Path.of("attendance", fileName), JUNE_10_TO_16);
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Tests of the fixed-width bank upload file.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import static org.junit.jupiter.api.Assertions.*;      // For assertions
+
+import java.io.*;                                       // For writing the file to memory
+import java.nio.charset.StandardCharsets;               // For decoding the file
+import java.time.LocalDate;                             // For pay period dates
+import java.util.*;                                     // For collections like List
+import org.junit.jupiter.api.*;                         // For test annotations
+
+class BankFilePayslipWriterTest {
+
+    @Test
+    void writesEveryRecordAsEightyAsciiBytes() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BankFilePayslipWriter writer = new BankFilePayslipWriter(out)) {
+            writer.write(employee(10001, "Peña", "José Ñino"), List.of(payslip(10001, "Peña, José Ñino", 1_234_567)));
+            writer.write(employee(10002, "Łukasz", "Straße"), List.of(payslip(10002, "Łukasz, Straße", -500)));
+            writer.write(employee(10003, "Garcia", "Manuel III"), List.of(payslip(10003, "Garcia, Manuel III", 100)));
+        }
+        byte[] file = out.toByteArray();
+        String[] records = new String(file, StandardCharsets.US_ASCII).split("\n");
+        assertEquals(4, records.length);
+        assertEquals(4 * 81, file.length);                      // 80 bytes and a newline per record
+        for (byte b : file) assertTrue(b > 0, "non-ASCII byte");
+        assertEquals("Pena, Jose Nino", records[0].substring(11, 51).trim());
+        assertEquals("?ukasz, Stra?e", records[1].substring(11, 51).trim());
+        assertEquals("20240614+000000001234567", records[0].substring(51, 75));
+        assertEquals("20240614-000000000000500", records[1].substring(51, 75));
+        assertEquals("T0000000003+000000000001234167", records[3].substring(0, 30));
+    }
+
+    @Test
+    void leavesAsciiNamesAlone() {
+        assertEquals("San Jose, Brad", BankFilePayslipWriter.toAscii("San Jose, Brad"));
+        assertEquals("Hernandez, Eduard", BankFilePayslipWriter.toAscii("Hernández, Eduard"));
+        assertEquals("Tab Name", BankFilePayslipWriter.toAscii("Tab\tName"));
+    }
+
+    private static Employee employee(int number, String lastName, String firstName) {
+        return new Employee(number, lastName, firstName, "01/01/1990", "Staff", "N/A", -1, 50_000, 0, 0, 0);
+    }
+
+    private static Payslip payslip(int number, String fullName, long finalPay) {
+        LocalDate monday = LocalDate.of(2024, 6, 10);
+        return new Payslip(number, fullName, monday, monday.plusDays(4), 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, finalPay);
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Tests of the deduction tables loaded from the deduction table file. Each lookup is checked against
+ * the formulas the payroll system used before the tables were moved into the file, restated exactly
+ * in BigDecimal (including their integer divisions such as {@code 20832 / 4} and {@code 300 / 2 / 4})
+ * and rounded half up to centavos, at and around every bracket boundary and over a dense sweep.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import static org.junit.jupiter.api.Assertions.*;      // For assertions
+
+import java.io.*;                                       // For writing a table file
+import java.math.*;                                     // For the exact baseline formulas
+import java.nio.file.*;                                 // For temporary table files
+import java.time.LocalDate;                             // For effective dates
+import java.util.*;                                     // For collections like TreeSet
+import org.junit.jupiter.api.*;                         // For test annotations
+import org.junit.jupiter.api.io.TempDir;                // For a temporary directory
+
+class DeductionTablesTest {
+
+    private static final String TABLE_FILE_PATH = "src/main/deductiontables.csv";   // Table file shipped with the system
+    private static final BigDecimal WEEKLY_PAYMENTS = BigDecimal.valueOf(4);        // Weeks per month in the baseline formulas
+    private static DeductionTables tables;
+
+    @BeforeAll
+    static void loadTables() throws IOException {
+        NavigableMap<LocalDate, DeductionTables> versions = DeductionTables.load(TABLE_FILE_PATH);
+        assertEquals(LocalDate.of(2024, 1, 1), versions.firstKey());
+        tables = versions.firstEntry().getValue();
+        assertEquals("2024.1", tables.version());
+    }
+
+    @Test
+    void matchesBaselineAtAndAroundEveryBracketBoundary() {
+        for (long boundary : boundaries()) {
+            for (long grossSalary = boundary - 1; grossSalary <= boundary + 1; grossSalary++) {
+                if (grossSalary >= 0) assertMatchesBaseline(grossSalary);
+            }
+        }
+    }
+
+    @Test
+    void matchesBaselineForEveryCentavoUpToTheTopSssBracket() {
+        for (long grossSalary = 0; grossSalary <= 700_000; grossSalary++) assertMatchesBaseline(grossSalary);     // Up to 7,000.00
+    }
+
+    @Test
+    void matchesBaselineAcrossTheHigherBrackets() {
+        for (long grossSalary = 700_000; grossSalary <= 80_000_000; grossSalary += 997) assertMatchesBaseline(grossSalary);
+    }
+
+    @Test
+    void sssUsesTheFirstBracketAtOrAboveTheSalaryAndTheMaximumAboveAll() {
+        assertEquals(3_375, tables.sssContribution(0, RoundingMode.HALF_UP));             // 135.00 / 4 = 33.75
+        assertEquals(3_375, tables.sssContribution(81_250, RoundingMode.HALF_UP));        // 812.50 is still the first bracket
+        assertEquals(3_938, tables.sssContribution(81_251, RoundingMode.HALF_UP));        // 157.50 / 4 = 39.375
+        assertEquals(27_563, tables.sssContribution(618_750, RoundingMode.HALF_UP));      // 1102.50 / 4 = 275.625 (top listed bracket)
+        assertEquals(28_125, tables.sssContribution(618_751, RoundingMode.HALF_UP));      // Maximum 1125.00 / 4 = 281.25
+    }
+
+    @Test
+    void philHealthKeepsTheBaselineIntegerDivisionMinimumAndMaximum() {
+        assertEquals(3_700, tables.philHealthContribution(0, RoundingMode.HALF_UP));          // 300 / 2 / 4 in int arithmetic is 37, not 37.50
+        assertEquals(3_700, tables.philHealthContribution(250_000, RoundingMode.HALF_UP));    // 10000 / 4 = 2500.00 is still the minimum
+        assertEquals(117, tables.philHealthContribution(250_001, RoundingMode.HALF_UP));      // 2500.01 * 0.03 / 64 = 1.17
+        assertEquals(703, tables.philHealthContribution(1_499_999, RoundingMode.HALF_UP));    // 14999.99 * 0.03 / 64 = 7.03
+        assertEquals(22_500, tables.philHealthContribution(1_500_000, RoundingMode.HALF_UP)); // Above 59999.99 / 4: 1800 / 2 / 4 = 225
+    }
+
+    @Test
+    void pagIbigSwitchesRateAbove1500AndIsCappedAt25() {
+        assertEquals(1_500, tables.pagIbigContribution(150_000, RoundingMode.HALF_UP));   // 1% of 1500.00
+        assertEquals(2_500, tables.pagIbigContribution(150_001, RoundingMode.HALF_UP));   // 2% of 1500.01 is over the 100 / 4 cap
+        assertEquals(1, tables.pagIbigContribution(50, RoundingMode.HALF_UP));            // 1% of 0.50 = 0.005 rounds half up
+    }
+
+    @Test
+    void withholdingTaxKeepsTheBaselineIntegerDivisionBaseAmounts() {
+        assertEquals(0, tables.withholdingTax(520_800, RoundingMode.HALF_UP));                // 20832 / 4 = 5208 is tax free
+        assertEquals(0, tables.withholdingTax(520_801, RoundingMode.HALF_UP));                // 0.01 * 20% rounds to 0.00
+        assertEquals(62_500, tables.withholdingTax(833_301, RoundingMode.HALF_UP));           // 2500 / 4 = 625 base
+        assertEquals(270_800, tables.withholdingTax(1_666_601, RoundingMode.HALF_UP));        // 10833 / 4 = 2708 base, not 2708.25
+        assertEquals(1_020_834, tables.withholdingTax(4_166_601, RoundingMode.HALF_UP));      // 40833.33 / 4 = 10208.3325 base plus 0.0032
+        assertEquals(21_020_865, tables.withholdingTax(66_666_700, RoundingMode.HALF_UP));    // 32% bracket runs to 666667 (no / 4)
+        assertEquals(22_708_334, tables.withholdingTax(66_666_701, RoundingMode.HALF_UP));    // 35% over 166667 above it
+    }
+
+    @Test
+    void rejectsBracketsOutOfOrder(@TempDir Path directory) throws IOException {
+        Path tableFile = directory.resolve("deductiontables.csv");
+        List<String> rows = new ArrayList<>(Files.readAllLines(Path.of(TABLE_FILE_PATH)));
+        int firstSss = rows.indexOf(rows.stream().filter(row -> row.startsWith("SSS,")).findFirst().orElseThrow());
+        Collections.swap(rows, firstSss, firstSss + 1);
+        Files.write(tableFile, rows);
+        assertThrows(IOException.class, () -> DeductionTables.load(tableFile.toString()));
+    }
+
+    private static void assertMatchesBaseline(long grossSalary) {
+        BigDecimal gross = BigDecimal.valueOf(grossSalary, 2);
+        assertEquals(centavos(baselineSss(gross)), tables.sssContribution(grossSalary, RoundingMode.HALF_UP), () -> "SSS at " + gross);
+        assertEquals(centavos(baselinePhilHealth(gross)), tables.philHealthContribution(grossSalary, RoundingMode.HALF_UP),
+                () -> "PhilHealth at " + gross);
+        assertEquals(centavos(baselinePagIbig(gross)), tables.pagIbigContribution(grossSalary, RoundingMode.HALF_UP),
+                () -> "Pag-IBIG at " + gross);
+        assertEquals(centavos(baselineWithholdingTax(gross)), tables.withholdingTax(grossSalary, RoundingMode.HALF_UP),
+                () -> "Withholding tax at " + gross);
+    }
+
+    /**
+     * @return Gross salaries in centavos at which a baseline formula changes bracket or rate
+     */
+    private static SortedSet<Long> boundaries() {
+        SortedSet<Long> boundaries = new TreeSet<>();
+        for (int monthly = 3250; monthly <= 24750; monthly += 500) boundaries.add(monthly * 25L);  // SSS: monthly / 4 in centavos
+        boundaries.addAll(List.of(250_000L, 1_499_999L, 1_500_000L));                                // PhilHealth
+        boundaries.addAll(List.of(125_000L, 150_000L));                                              // Pag-IBIG: 2% reaches the cap at 1250
+        boundaries.addAll(List.of(520_800L, 833_300L, 1_666_600L, 4_166_600L, 16_666_700L, 66_666_700L));    // Withholding tax
+        return boundaries;
+    }
+
+    private static long centavos(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    // The baseline formulas, with Java's integer division written out where the baseline used int literals
+
+    private static BigDecimal baselineSss(BigDecimal gross) {
+        for (int i = 0; i < 44; i++) {
+            BigDecimal salaryLimit = BigDecimal.valueOf(3250 + 500 * i).divide(WEEKLY_PAYMENTS);     // 3250.0 / 4, 3750.0 / 4, ...
+            if (gross.compareTo(salaryLimit) <= 0) {
+                return new BigDecimal("135.00").add(new BigDecimal("22.50").multiply(BigDecimal.valueOf(i))).divide(WEEKLY_PAYMENTS);
+            }
+        }
+        return new BigDecimal("1125.00").divide(WEEKLY_PAYMENTS);
+    }
+
+    private static BigDecimal baselinePhilHealth(BigDecimal gross) {
+        if (gross.compareTo(BigDecimal.valueOf(10000 / 4)) <= 0) return BigDecimal.valueOf(300 / 2 / 4);
+        if (gross.compareTo(new BigDecimal("59999.99").divide(WEEKLY_PAYMENTS)) <= 0) {
+            return gross.multiply(new BigDecimal("0.03")).divide(BigDecimal.valueOf(2 * 4 * 2 * 4));
+        }
+        return BigDecimal.valueOf(1800 / 2 / 4);
+    }
+
+    private static BigDecimal baselinePagIbig(BigDecimal gross) {
+        BigDecimal contribution = gross.multiply(gross.compareTo(BigDecimal.valueOf(1500)) <= 0 ? new BigDecimal("0.01") : new BigDecimal("0.02"));
+        return contribution.min(new BigDecimal("100.00").divide(WEEKLY_PAYMENTS));
+    }
+
+    private static BigDecimal baselineWithholdingTax(BigDecimal gross) {
+        if (gross.compareTo(BigDecimal.valueOf(20832 / 4)) <= 0) return BigDecimal.ZERO;
+        if (gross.compareTo(BigDecimal.valueOf(33333 / 4)) <= 0) {
+            return gross.subtract(BigDecimal.valueOf(20833 / 4)).multiply(new BigDecimal("0.20"));
+        }
+        if (gross.compareTo(BigDecimal.valueOf(66667 / 4)) <= 0) {
+            return BigDecimal.valueOf(2500 / 4).add(gross.subtract(BigDecimal.valueOf(33333 / 4)).multiply(new BigDecimal("0.25")));
+        }
+        if (gross.compareTo(BigDecimal.valueOf(166667 / 4)) <= 0) {
+            return BigDecimal.valueOf(10833 / 4).add(gross.subtract(BigDecimal.valueOf(66667 / 4)).multiply(new BigDecimal("0.30")));
+        }
+        if (gross.compareTo(BigDecimal.valueOf(666667)) <= 0) {
+            return new BigDecimal("40833.33").divide(WEEKLY_PAYMENTS)
+                    .add(gross.subtract(BigDecimal.valueOf(166667 / 4)).multiply(new BigDecimal("0.32")));
+        }
+        return new BigDecimal("208333.33").divide(WEEKLY_PAYMENTS).add(gross.subtract(BigDecimal.valueOf(166667)).multiply(new BigDecimal("0.35")));
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Tests of the employee repository lookups against the employee data file shipped with the system.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import static org.junit.jupiter.api.Assertions.*;      // For assertions
+
+import java.io.*;                                       // For file input/output exceptions
+import java.util.*;                                     // For collections like List
+import org.junit.jupiter.api.*;                         // For test annotations
+
+class EmployeeRepositoryTest {
+
+    private static final String EMPLOYEE_FILE_PATH = "src/main/employeedata.csv";     // Employee data file shipped with the system
+    private static EmployeeRepository employees;
+
+    @BeforeAll
+    static void loadEmployees() throws IOException {
+        employees = EmployeeRepository.load(EMPLOYEE_FILE_PATH);
+    }
+
+    @Test
+    void findsEmployeesByNumber() {
+        Employee employee = employees.findById(10002);
+        assertEquals("Lim, Antonio", employee.fullName());
+        assertEquals(10001, employee.supervisorNumber());       // "Garcia, Manuel III" resolved to an employee number
+        assertNull(employees.findById(99999));
+    }
+
+    @Test
+    void findsDirectReportsInEmployeeNumberOrder() {
+        List<Employee> reports = employees.findBySupervisor(10001);
+        assertEquals(List.of(10002, 10003, 10004), reports.stream().map(Employee::employeeNumber).toList());
+        assertTrue(employees.findBySupervisor(99999).isEmpty());
+    }
+
+    @Test
+    void everyEmployeeWithAKnownSupervisorIsOneOfTheirReports() {
+        int reported = 0;
+        for (Employee employee : employees.all()) {
+            reported += employees.findBySupervisor(employee.employeeNumber()).size();
+            if (employee.supervisorNumber() >= 0) {
+                assertTrue(employees.findBySupervisor(employee.supervisorNumber()).contains(employee), employee::fullName);
+            }
+        }
+        assertEquals(employees.all().stream().filter(employee -> employee.supervisorNumber() >= 0).count(), reported);
+    }
+}
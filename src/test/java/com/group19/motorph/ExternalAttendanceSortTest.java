@@ -0,0 +1,89 @@
+/**
+ * Tests of the memory-bounded sort of attendance records by employee.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import static org.junit.jupiter.api.Assertions.*;      // For assertions
+
+import java.io.*;                                       // For file input/output exceptions
+import java.nio.file.*;                                 // For the spill directory
+import java.util.*;                                     // For collections like SplittableRandom
+import java.util.stream.Stream;                         // For listing the spill directory
+import org.junit.jupiter.api.*;                         // For test annotations
+import org.junit.jupiter.api.io.TempDir;                // For a temporary directory
+
+class ExternalAttendanceSortTest {
+
+    private static final long MEMORY_BUDGET = 1L << 20;         // Smallest budget, so runs stay small
+    private static final int EMPLOYEES = 500;
+    private static final int RECORDS = 1_600_000;               // About 73 runs of 21,845 records at a 1 MB budget
+
+    @Test
+    void mergesMoreRunsThanOnePassCanHold(@TempDir Path spillRoot) throws IOException {
+        SplittableRandom random = new SplittableRandom(19);
+        int[] added = new int[EMPLOYEES];                       // Records added per employee so far
+        try (ExternalAttendanceSort sort = new ExternalAttendanceSort(MEMORY_BUDGET, spillRoot)) {
+            for (int i = 0; i < RECORDS; i++) {
+                int employee = random.nextInt(EMPLOYEES);
+                sort.onRecord(10001 + employee, added[employee]++, 480, 1020);     // Date counts the employee's records
+            }
+            assertTrue(sort.runCount() > 64, "only " + sort.runCount() + " runs");
+
+            int records = 0;
+            int previousEmployee = Integer.MIN_VALUE;
+            int previousDate = -1;
+            try (ExternalAttendanceSort.Cursor cursor = sort.sorted()) {
+                while (cursor.next()) {
+                    records++;
+                    assertTrue(cursor.employeeId() >= previousEmployee, "employees out of order");
+                    if (cursor.employeeId() != previousEmployee) previousDate = -1;
+                    assertEquals(previousDate + 1, cursor.epochDay(), "records of " + cursor.employeeId() + " out of order");
+                    assertEquals(480, cursor.logInMinute());
+                    assertEquals(1020, cursor.logOutMinute());
+                    previousEmployee = cursor.employeeId();
+                    previousDate = cursor.epochDay();
+                }
+            }
+            assertEquals(RECORDS, records);
+            assertTrue(sort.spilledBytes() > 12L * RECORDS);   // Merge passes are counted too
+            assertEquals(1, list(spillRoot).size());
+        }
+        assertEquals(List.of(), list(spillRoot));               // Spill directory deleted on close
+    }
+
+    @Test
+    void keepsASmallSortInMemory(@TempDir Path spillRoot) throws IOException {
+        try (ExternalAttendanceSort sort = new ExternalAttendanceSort(MEMORY_BUDGET, spillRoot)) {
+            sort.onRecord(10002, 19_884, 480, 1020);
+            sort.onRecord(10001, 19_885, 475, 1030);
+            sort.onRecord(10002, 19_883, 490, 1000);
+            List<Integer> dates = new ArrayList<>();
+            try (ExternalAttendanceSort.Cursor cursor = sort.sorted()) {
+                while (cursor.next()) dates.add(cursor.epochDay());
+            }
+            assertEquals(List.of(19_885, 19_884, 19_883), dates);
+            assertEquals(0, sort.runCount());
+        }
+        assertEquals(List.of(), list(spillRoot));
+    }
+
+    @Test
+    void parsesMemorySizes() {
+        assertEquals(65_536, ExternalAttendanceSort.parseSize("65536"));
+        assertEquals(512L << 20, ExternalAttendanceSort.parseSize(" 512M "));
+        assertEquals(4L << 30, ExternalAttendanceSort.parseSize("4g"));
+        assertEquals(8_388_607L << 40, ExternalAttendanceSort.parseSize("8388607t"));       // Largest size in terabytes
+        for (String invalid : List.of("", "m", "8x", "-1k", "1.5g", "9999999t", "99999999999999999999")) {
+            assertThrows(NumberFormatException.class, () -> ExternalAttendanceSort.parseSize(invalid), invalid);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ExternalAttendanceSort(MEMORY_BUDGET - 1, Path.of(".")));
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Tests of the incremental attendance preview against the all-employees batch run.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import static org.junit.jupiter.api.Assertions.*;      // For assertions
+
+import java.io.*;                                       // For file input/output exceptions
+import java.nio.file.*;                                 // For a copy of the attendance file
+import java.time.*;                                     // For pay period dates and durations
+import java.util.*;                                     // For collections like TreeMap
+import java.util.concurrent.ForkJoinPool;               // For loading attendance the way the batch run does
+import org.junit.jupiter.api.*;                         // For test annotations
+import org.junit.jupiter.api.io.TempDir;                // For a temporary directory
+
+class IncrementalAttendanceTest {
+
+    private static final String ATTENDANCE_FILE_PATH = "src/main/attendancerecord.csv";     // Attendance file shipped with the system
+    private static final String EMPLOYEE_FILE_PATH = "src/main/employeedata.csv";           // Employee data file shipped with the system
+    private static final PayPeriod PERIOD = new PayPeriod(LocalDate.of(2024, 6, 12), LocalDate.of(2024, 6, 19));   // Wednesday to Wednesday
+    private static final LocalDate STRADDLED_WEEK = LocalDate.of(2024, 6, 10);              // Monday of the week the period starts in
+    private static final long RULES_FINGERPRINT = 1;
+
+    @TempDir
+    Path directory;
+    private Path attendance;
+
+    @BeforeEach
+    void copyAttendance() throws IOException {
+        attendance = Files.copy(Path.of(ATTENDANCE_FILE_PATH), directory.resolve("attendancerecord.csv"));
+        if (!Files.readString(attendance).endsWith("\n")) Files.writeString(attendance, "\n", StandardOpenOption.APPEND);  // So rows can be appended
+    }
+
+    @Test
+    void previewPaysTheSameAsTheBatchRunForWeeksStraddlingThePeriod() throws Exception {
+        IncrementalAttendance.Update preview = update(PERIOD);
+        assertTrue(preview.fullRecompute());
+        Map<String, TreeMap<LocalDate, Duration[]>> previewWeeks = preview.changedWeeklyRecords();
+
+        Map<String, TreeMap<LocalDate, Duration[]>> batchWeeks;
+        ForkJoinPool workerPool = new ForkJoinPool(2);
+        try {
+            AttendanceShards shards = AttendanceSource.load(attendance.toString(), PERIOD, workerPool, null);
+            batchWeeks = MotorPH.aggregateAttendance(shards, workerPool, new PayrollMetrics("test")).toWeeklyRecords();
+        } finally {
+            workerPool.shutdown();
+        }
+
+        EmployeeRepository employees = EmployeeRepository.load(EMPLOYEE_FILE_PATH);
+        int straddling = 0;
+        for (Employee employee : employees.all()) {
+            String id = Integer.toString(employee.employeeNumber());
+            TreeMap<LocalDate, Duration[]> expected = batchWeeks.getOrDefault(id, new TreeMap<>());
+            assertEquals(MotorPH.computePayslips(employee, expected),
+                    MotorPH.computePayslips(employee, previewWeeks.getOrDefault(id, new TreeMap<>())), employee::fullName);
+            if (expected.containsKey(STRADDLED_WEEK)) straddling++;
+        }
+        assertTrue(straddling > 0, "no payslips for the straddled week");
+
+        // Without the period the straddled week also holds Monday and Tuesday
+        Map<String, TreeMap<LocalDate, Duration[]>> wholeWeeks = update(PayPeriod.ALL).changedWeeklyRecords();
+        assertTrue(wholeWeeks.get("10001").get(STRADDLED_WEEK)[0].compareTo(previewWeeks.get("10001").get(STRADDLED_WEEK)[0]) > 0);
+    }
+
+    @Test
+    void keepsASeparateStatePerPayPeriod() throws IOException {
+        assertTrue(update(PERIOD).fullRecompute());
+        assertTrue(update(PayPeriod.ALL).fullRecompute());          // Not the totals saved for the period
+        IncrementalAttendance.Update again = update(PERIOD);
+        assertFalse(again.fullRecompute());
+        assertEquals(0, again.newRecords());
+        assertTrue(Files.exists(IncrementalAttendance.statePath(attendance.toString(), PERIOD)));
+        assertTrue(Files.exists(IncrementalAttendance.statePath(attendance.toString(), PayPeriod.ALL)));
+
+        Files.writeString(attendance, "10001,Garcia,Manuel III,06/13/2024,8:00,17:00\n", StandardOpenOption.APPEND);
+        IncrementalAttendance.Update appended = update(PERIOD);
+        assertEquals(1, appended.newRecords());
+        assertEquals(Set.of("10001"), appended.changedWeeklyRecords().keySet());
+    }
+
+    private IncrementalAttendance.Update update(PayPeriod period) throws IOException {
+        PayrollMetrics metrics = new PayrollMetrics("test");
+        return IncrementalAttendance.update(List.of(attendance), period, RULES_FINGERPRINT,
+                weeklyAttendance -> (employeeId, epochDay, logIn, logOut) ->
+                        MotorPH.processSingleAttendanceRecord(employeeId, epochDay, logIn, logOut, weeklyAttendance, metrics),
+                null);
+    }
+}
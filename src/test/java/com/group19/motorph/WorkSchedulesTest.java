@@ -0,0 +1,142 @@
+/**
+ * Tests of the work schedule rules: overnight shifts, work days, holidays and invalid schedule files.
+ * @author Kristopher Carlo, Pil Anthony, Janice, Rey
+ */
+
+package com.group19.motorph;
+
+import static org.junit.jupiter.api.Assertions.*;      // For assertions
+
+import java.io.*;                                       // For file input/output exceptions
+import java.nio.file.*;                                 // For temporary schedule files
+import java.time.*;                                     // For attendance dates and times
+import org.junit.jupiter.api.*;                         // For test annotations
+import org.junit.jupiter.api.io.TempDir;                // For a temporary directory
+
+class WorkSchedulesTest {
+
+    private static final String HEADER = "Group,Shift Start,Shift End,Grace Minutes,Break Minutes,Work Days,Overtime Rate,"
+            + "Late Forfeits Overtime,Holiday Calendar,Employees\n";
+    private static final String SCHEDULES = HEADER
+            + "Day Shift,08:00,17:00,10,60,Mon-Fri,1.25,Yes,PH,*\n"
+            + "Night Shift,22:00,06:00,15,30,Mon-Fri,1.35,No,,10002\n"
+            + "Saturday Crew,07:00,16:00,10,60,Tue-Sat,1.25,Yes,PH,10003-10004\n"
+            + "Weekend Crew,09:00,18:00,0,60,Sat-Mon,1.5,No,,10010\n";
+    private static final String HOLIDAYS = "Calendar,Date,Holiday,Day Off\n"
+            + "PH,06/12/2024,Independence Day,No\n"
+            + "PH,06/17/2024,Eid'l Adha,Yes\n";
+    private static final LocalDate MONDAY = LocalDate.of(2024, 6, 10);
+    private static final int DAY_SHIFT = 10001;
+    private static final int NIGHT_SHIFT = 10002;
+    private static final int SATURDAY_CREW = 10003;
+    private static final int WEEKEND_CREW = 10010;
+
+    @TempDir
+    Path directory;
+    private WorkSchedules schedules;
+    private PayrollMetrics metrics;
+
+    @BeforeEach
+    void loadSchedules() throws IOException {
+        schedules = load(SCHEDULES, HOLIDAYS);
+        metrics = new PayrollMetrics("test");
+    }
+
+    @Test
+    void countsNightShiftPunchesAfterMidnightOnTheDayTheShiftStarts() {
+        int nightShift = schedules.scheduleOf(NIGHT_SHIFT);
+        assertEquals(6 * 60 + WorkSchedules.MINUTES_PER_DAY, schedules.endMinute(nightShift));
+        assertEquals(14 * 60, schedules.dayBoundaryMinute(nightShift));                     // Midpoint of 06:00-22:00
+
+        assertArrayEquals(new long[]{450, 0}, process(NIGHT_SHIFT, MONDAY, "22:00", "06:00"));         // 8 hours less the break
+        assertArrayEquals(new long[]{450, 0}, process(NIGHT_SHIFT, MONDAY, "22:14", "06:00"));         // Within the grace period
+        assertEquals(0, metrics.lateRecords);
+        assertArrayEquals(new long[]{300, 60}, process(NIGHT_SHIFT, MONDAY, "00:30", "07:00"));        // Late, and overtime past 06:00
+        assertEquals(1, metrics.lateRecords);
+        assertArrayEquals(new long[]{450, 90}, process(NIGHT_SHIFT, MONDAY, "22:00", "07:30"));
+        assertArrayEquals(new long[]{0, 0}, process(NIGHT_SHIFT, MONDAY, "05:00", "23:00"));           // Logs out before logging in
+        assertEquals(1, metrics.invalidRecords);
+    }
+
+    @Test
+    void paysSaturdayCrewsOnSaturdaysAndNotOnMondays() {
+        int saturdayCrew = schedules.scheduleOf(SATURDAY_CREW);
+        assertEquals(saturdayCrew, schedules.scheduleOf(10004));
+        assertEquals(schedules.scheduleOf(DAY_SHIFT), schedules.scheduleOf(10005));           // Not listed, so the default group
+        assertTrue(schedules.isWorkDay(saturdayCrew, 5));
+        assertFalse(schedules.isWorkDay(saturdayCrew, 0));
+        assertEquals(5, schedules.lastWorkDay(saturdayCrew));                               // Payslips end on Saturday
+
+        assertArrayEquals(new long[]{480, 0}, process(SATURDAY_CREW, MONDAY.plusDays(5), "07:00", "16:00"));
+        assertArrayEquals(new long[]{0, 0}, process(SATURDAY_CREW, MONDAY, "07:00", "16:00"));
+        assertEquals(1, metrics.weekendRecords);
+    }
+
+    @Test
+    void paysHolidaysUnlessTheyAreDaysOff() {
+        int dayShift = schedules.scheduleOf(DAY_SHIFT);
+        LocalDate independenceDay = LocalDate.of(2024, 6, 12);
+        LocalDate eidAlAdha = LocalDate.of(2024, 6, 17);
+        assertTrue(schedules.isHoliday(dayShift, (int) independenceDay.toEpochDay()));
+        assertFalse(schedules.isHolidayDayOff(dayShift, (int) independenceDay.toEpochDay()));
+        assertTrue(schedules.isHolidayDayOff(dayShift, (int) eidAlAdha.toEpochDay()));
+        assertFalse(schedules.isHoliday(schedules.scheduleOf(NIGHT_SHIFT), (int) independenceDay.toEpochDay()));   // No calendar
+
+        assertArrayEquals(new long[]{480, 30}, process(DAY_SHIFT, independenceDay, "08:00", "17:30"));
+        assertArrayEquals(new long[]{0, 0}, process(DAY_SHIFT, eidAlAdha, "08:00", "17:00"));
+        assertEquals(2, metrics.holidayRecords);
+    }
+
+    @Test
+    void wrapsWorkDayRangesAroundTheWeek() {
+        int weekendCrew = schedules.scheduleOf(WEEKEND_CREW);
+        for (int day = 0; day < 7; day++) {
+            assertEquals(day == 0 || day >= 5, schedules.isWorkDay(weekendCrew, day), "day " + day);
+        }
+        assertEquals(6, schedules.lastWorkDay(weekendCrew));                                // Sunday ends the Monday-based week
+        assertArrayEquals(new long[]{480, 0}, process(WEEKEND_CREW, MONDAY.plusDays(6), "09:00", "18:00"));
+    }
+
+    @Test
+    void fingerprintChangesWithTheRules() throws IOException {
+        assertEquals(schedules.fingerprint(), load(SCHEDULES, HOLIDAYS).fingerprint());
+        assertNotEquals(schedules.fingerprint(), load(SCHEDULES, HOLIDAYS.replace("Independence Day,No", "Independence Day,Yes")).fingerprint());
+        assertNotEquals(schedules.fingerprint(), load(SCHEDULES.replace("1.35", "1.5"), HOLIDAYS).fingerprint());
+    }
+
+    @Test
+    void rejectsInvalidSchedules() {
+        assertInvalid("Employee 10004 is in groups Saturday Crew and Extra Crew",
+                SCHEDULES + "Extra Crew,07:00,16:00,10,60,Mon-Fri,1.25,Yes,,10004-10006\n", HOLIDAYS);
+        assertInvalid("More than one group lists all employees",
+                SCHEDULES + "Extra Crew,07:00,16:00,10,60,Mon-Fri,1.25,Yes,,*\n", HOLIDAYS);
+        assertInvalid("No work schedule lists all employees",
+                HEADER + "Night Shift,22:00,06:00,15,30,Mon-Fri,1.35,No,,10002\n", HOLIDAYS);
+        assertInvalid("Unknown holiday calendar SG in group Day Shift",
+                SCHEDULES.replace("Yes,PH,*", "Yes,SG,*"), HOLIDAYS);
+        assertInvalid("Expected Yes or No, not Maybe, in holiday calendar PH",
+                SCHEDULES, HOLIDAYS.replace("Independence Day,No", "Independence Day,Maybe"));
+    }
+
+    private void assertInvalid(String message, String scheduleFile, String holidayFile) {
+        IOException e = assertThrows(IOException.class, () -> load(scheduleFile, holidayFile));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+
+    private WorkSchedules load(String scheduleFile, String holidayFile) throws IOException {
+        Path schedulePath = Files.writeString(directory.resolve("workschedules.csv"), scheduleFile);
+        Path holidayPath = Files.writeString(directory.resolve("holidays.csv"), holidayFile);
+        return WorkSchedules.load(schedulePath.toString(), holidayPath.toString());
+    }
+
+    /**
+     * @return Regular and overtime minutes the record adds to the employee's week
+     */
+    private long[] process(int employeeId, LocalDate date, String logIn, String logOut) {
+        WeeklyAttendance weeklyAttendance = new WeeklyAttendance();
+        MotorPH.processSingleAttendanceRecord(schedules, employeeId, (int) date.toEpochDay(),
+                LocalTime.parse(logIn).toSecondOfDay() / 60, LocalTime.parse(logOut).toSecondOfDay() / 60, weeklyAttendance, metrics);
+        int monday = (int) date.with(DayOfWeek.MONDAY).toEpochDay();
+        return new long[]{weeklyAttendance.workMinutes(employeeId, monday), weeklyAttendance.overtimeMinutes(employeeId, monday)};
+    }
+}